@@ -0,0 +1,266 @@
+package com.authreg.bench;
+
+import com.authreg.AuthRegPlugin;
+import com.authreg.metrics.LatencyHistogram;
+import com.authreg.metrics.Metrics;
+import com.authreg.user.AuthManager;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class JoinStorm {
+    private static final String PASSWORD = "correct-horse-42";
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Map<String, String> options;
+    private final Random random;
+    private ServerMock server;
+    private AuthRegPlugin plugin;
+    private AuthManager authManager;
+
+    private long peakHeap;
+    private long peakTasks;
+    private int peakThreads;
+
+    private JoinStorm(Map<String, String> options) {
+        this.options = options;
+        this.random = new Random(longOption("seed", 1L));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Usage: JoinStorm [players=1000] [seconds=10] [returning=0.7] [wrong=0.05]"
+                        + " [typing-ms=1500] [stay-seconds=0] [hash-target-ms=250] [seed=1]");
+                System.exit(2);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        new JoinStorm(options).run();
+    }
+
+    private void run() throws Exception {
+        int players = (int) longOption("players", 1000L);
+        double seconds = doubleOption("seconds", 10.0);
+        double returning = doubleOption("returning", 0.7);
+        double wrong = doubleOption("wrong", 0.05);
+        long typingNanos = TimeUnit.MILLISECONDS.toNanos(longOption("typing-ms", 1500L));
+        long stayNanos = TimeUnit.SECONDS.toNanos(longOption("stay-seconds", 0L));
+
+        server = MockBukkit.mock();
+        try {
+            World world = server.addSimpleWorld("world");
+            plugin = MockBukkit.load(AuthRegPlugin.class);
+            configure();
+            authManager = plugin.getAuthManager();
+            waitForStorage(plugin.getAccountStorage().whenReady());
+
+            List<Client> clients = new ArrayList<>(players);
+            for (int i = 0; i < players; i++) {
+                long joinAt = (long) (i * seconds * 1e9 / players);
+                clients.add(new Client("Storm" + i, UUID.randomUUID(), random.nextDouble() < returning,
+                        random.nextDouble() < wrong, joinAt));
+            }
+            seed(clients, world);
+            waitForStorage(plugin.getAccountStorage().init(plugin.getAuthConfig().getDatabaseSettings()));
+
+            LatencyHistogram timeToAuth = new LatencyHistogram();
+            long start = System.nanoTime();
+            long deadline = start + (long) (seconds * 1e9) + typingNanos * 2L
+                    + TimeUnit.SECONDS.toNanos(plugin.getAuthConfig().getTimeoutSeconds() + 30L) + stayNanos;
+            long lastAuthenticated = start;
+            int finished = 0;
+            long nextTick = start;
+            while (finished < players && System.nanoTime() < deadline) {
+                long now = System.nanoTime() - start;
+                for (Client client : clients) {
+                    if (client.step(now, typingNanos, stayNanos, timeToAuth)) {
+                        finished++;
+                        if (client.authenticatedAt > 0L) {
+                            lastAuthenticated = Math.max(lastAuthenticated, start + client.authenticatedAt);
+                        }
+                    }
+                }
+                server.getScheduler().performOneTick();
+                sample();
+                nextTick += TICK_NANOS;
+                long sleep = nextTick - System.nanoTime();
+                if (sleep > 0L) {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                }
+            }
+            report(players, finished, timeToAuth, lastAuthenticated - start);
+        } finally {
+            MockBukkit.unmock();
+        }
+    }
+
+    private void configure() {
+        plugin.getConfig().set("login.ip-cooldown-seconds", 0);
+        plugin.getConfig().set("rate-limit.enabled", false);
+        plugin.getConfig().set("teleport.enabled", false);
+        plugin.getConfig().set("hashing.target-ms", (int) longOption("hash-target-ms", 250L));
+        plugin.saveConfig();
+        plugin.reloadPlugin();
+    }
+
+    private void waitForStorage(CompletableFuture<Void> ready) throws Exception {
+        while (!ready.isDone()) {
+            server.getScheduler().performOneTick();
+            TimeUnit.MILLISECONDS.sleep(50L);
+        }
+        ready.join();
+    }
+
+    private void seed(List<Client> clients, World world) {
+        String hash = plugin.getHashingService().hashAsync(PASSWORD).join();
+        Location spawn = new Location(world, 0.0, 64.0, 0.0);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (Client client : clients) {
+            if (client.returning) {
+                writes.add(plugin.getAccountStorage().createAccountAsync(client.uuid, client.name, hash, "127.0.0.1", spawn));
+            }
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private void sample() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        peakThreads = Math.max(peakThreads, threads.getThreadCount());
+        Metrics metrics = plugin.getMetrics();
+        long queued = 0L;
+        for (String gauge : new String[]{"hash_queue", "db_read_queue", "db_write_queue"}) {
+            if (metrics.getGauges().containsKey(gauge)) {
+                queued += metrics.getGauges().get(gauge).getAsLong();
+            }
+        }
+        peakTasks = Math.max(peakTasks, queued);
+    }
+
+    private void report(int players, int finished, LatencyHistogram timeToAuth, long spanNanos) {
+        System.out.printf(Locale.ROOT, "players=%d finished=%d authenticated=%d%n", players, finished, timeToAuth.getCount());
+        System.out.printf(Locale.ROOT, "throughput=%.1f auth/s%n",
+                spanNanos > 0L ? timeToAuth.getCount() / (spanNanos / 1e9) : 0.0);
+        System.out.printf(Locale.ROOT, "time-to-authenticated p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                timeToAuth.percentileNanos(0.5) / 1e6, timeToAuth.percentileNanos(0.99) / 1e6, timeToAuth.getMaxNanos() / 1e6);
+        System.out.printf(Locale.ROOT, "peak heap=%d MB peak queued tasks=%d peak threads=%d%n",
+                peakHeap / (1024L * 1024L), peakTasks, peakThreads);
+        for (Map.Entry<String, LongAdder> entry : plugin.getMetrics().getCounters().entrySet()) {
+            System.out.println(entry.getKey() + "=" + entry.getValue().sum());
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : plugin.getMetrics().getHistograms().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            if (histogram.getCount() > 0L) {
+                System.out.printf(Locale.ROOT, "%s p50=%.2f ms p99=%.2f ms max=%.2f ms n=%d%n", entry.getKey(),
+                        histogram.percentileNanos(0.5) / 1e6, histogram.percentileNanos(0.99) / 1e6,
+                        histogram.getMaxNanos() / 1e6, histogram.getCount());
+            }
+        }
+    }
+
+    private long longOption(String key, long fallback) {
+        String value = options.get(key);
+        return value == null ? fallback : Long.parseLong(value);
+    }
+
+    private double doubleOption(String key, double fallback) {
+        String value = options.get(key);
+        return value == null ? fallback : Double.parseDouble(value);
+    }
+
+    private final class Client {
+        private final String name;
+        private final UUID uuid;
+        private final boolean returning;
+        private final long joinAt;
+        private boolean mistype;
+        private boolean registered;
+        private PlayerMock player;
+        private long typedAt;
+        private long authenticatedAt;
+        private boolean done;
+
+        private Client(String name, UUID uuid, boolean returning, boolean mistype, long joinAt) {
+            this.name = name;
+            this.uuid = uuid;
+            this.returning = returning;
+            this.mistype = mistype;
+            this.joinAt = joinAt;
+        }
+
+        private boolean step(long now, long typingNanos, long stayNanos, LatencyHistogram timeToAuth) {
+            if (done || now < joinAt) {
+                return false;
+            }
+            if (player == null) {
+                player = new PlayerMock(server, name, uuid);
+                server.addPlayer(player);
+                typedAt = now + typingNanos;
+                return false;
+            }
+            if (!player.isOnline()) {
+                done = true;
+                return true;
+            }
+            if (authenticatedAt == 0L) {
+                if (authManager.isAuthenticated(uuid)) {
+                    authenticatedAt = now;
+                    timeToAuth.record(now - joinAt);
+                    return finishIfStaying(now, stayNanos);
+                }
+                if (now >= typedAt) {
+                    typedAt = type(now, typingNanos);
+                }
+                return false;
+            }
+            return finishIfStaying(now, stayNanos);
+        }
+
+        private long type(long now, long typingNanos) {
+            if (!returning && !registered) {
+                registered = true;
+                authManager.handleRegister(player, PASSWORD);
+                return now + typingNanos;
+            }
+            if (mistype) {
+                mistype = false;
+                authManager.handleLogin(player, PASSWORD + "x");
+                return now + typingNanos;
+            }
+            authManager.handleLogin(player, PASSWORD);
+            return now + RETRY_NANOS;
+        }
+
+        private boolean finishIfStaying(long now, long stayNanos) {
+            if (now - authenticatedAt < stayNanos) {
+                return false;
+            }
+            if (stayNanos > 0L) {
+                player.disconnect();
+            }
+            done = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.authreg.command;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandMatcherBenchmark {
+    private CommandMatcher allowed;
+
+    @Setup
+    public void setUp() {
+        allowed = CommandMatcher.of(List.of("login", "l", "register", "reg", "authreg:login", "authreg:register"));
+    }
+
+    @Benchmark
+    public boolean allowedCommand() {
+        return allowed.matches("/login hunter2");
+    }
+
+    @Benchmark
+    public boolean namespacedCommand() {
+        return allowed.matches("/authreg:register hunter2 hunter2");
+    }
+
+    @Benchmark
+    public boolean blockedPrefix() {
+        return allowed.matches("/list");
+    }
+
+    @Benchmark
+    public boolean blockedCommand() {
+        return allowed.matches("/tp Steve 100 64 -250");
+    }
+}
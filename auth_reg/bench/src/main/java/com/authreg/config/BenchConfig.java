@@ -0,0 +1,17 @@
+package com.authreg.config;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.StringReader;
+
+public final class BenchConfig {
+    private BenchConfig() {
+    }
+
+    public static AuthConfig.DatabaseSettings sqlite(String file) {
+        String yaml = "database:\n"
+                + "  type: sqlite\n"
+                + "  file: '" + file.replace("'", "''") + "'\n";
+        return new AuthConfig.DatabaseSettings(YamlConfiguration.loadConfiguration(new StringReader(yaml)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.authreg.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageFormatBenchmark {
+    private static final String PREFIX = "&7[&bAuth&fReg&7] ";
+
+    private final Map<String, MessageTemplate> templates = new HashMap<>();
+
+    @Setup
+    public void setUp() {
+        templates.put("login.wrong_password", MessageTemplate.compile(PREFIX + "&cНеверный пароль. Осталось попыток: &e{attempts_left}"));
+        templates.put("login.prompt", MessageTemplate.compile(PREFIX + "&fВведите &b/login <пароль>&f для входа."));
+        templates.put("admin.reset_success", MessageTemplate.compile(PREFIX + "&aПароль игрока &e{player} &aсброшен."));
+    }
+
+    @Benchmark
+    public String formatOnePlaceholder() {
+        return templates.get("login.wrong_password").render("attempts_left", "3");
+    }
+
+    @Benchmark
+    public String formatMap() {
+        return templates.get("admin.reset_success").render(Map.of("player", "Steve"));
+    }
+
+    @Benchmark
+    public Object staticComponent() {
+        return templates.get("login.prompt").component();
+    }
+
+    @Benchmark
+    public Object renderComponent() {
+        return templates.get("login.wrong_password").renderComponent("attempts_left", "3");
+    }
+}
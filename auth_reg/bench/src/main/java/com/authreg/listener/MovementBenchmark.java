@@ -0,0 +1,56 @@
+package com.authreg.listener;
+
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovementBenchmark {
+    private Location from;
+    private Location walked;
+    private Location fell;
+    private Location turned;
+
+    @Setup
+    public void setUp() {
+        from = new Location(null, 10.5, 64.0, -20.5, 90f, 0f);
+        walked = new Location(null, 10.7, 64.0, -20.4, 95f, 5f);
+        fell = new Location(null, 10.5, 63.6, -20.5, 90f, 0f);
+        turned = new Location(null, 10.5, 64.0, -20.5, 180f, -30f);
+    }
+
+    @Benchmark
+    public boolean blockWalk() {
+        return AuthProtectionListener.shouldBlockMovement(from, walked);
+    }
+
+    @Benchmark
+    public boolean allowFall() {
+        return AuthProtectionListener.shouldBlockMovement(from, fell);
+    }
+
+    @Benchmark
+    public boolean allowLook() {
+        return AuthProtectionListener.shouldBlockMovement(from, turned);
+    }
+
+    @Benchmark
+    public Location lockToPrevious() {
+        return AuthProtectionListener.lockToPrevious(from, walked);
+    }
+}
@@ -0,0 +1,104 @@
+package com.authreg.listener;
+
+import com.authreg.AuthRegPlugin;
+import com.authreg.user.AuthManager;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.plugin.PluginManager;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtectionListenerBenchmark {
+    private static final String PASSWORD = "correct-horse-42";
+
+    @Param({"unregistered", "registered", "locked"})
+    public String state;
+
+    private ServerMock server;
+    private PluginManager pluginManager;
+    private PlayerMock mover;
+    private Location from;
+    private Location to;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = MockBukkit.mock();
+        World world = server.addSimpleWorld("world");
+        AuthRegPlugin plugin = MockBukkit.load(AuthRegPlugin.class);
+        plugin.getConfig().set("login.ip-cooldown-seconds", 0);
+        plugin.getConfig().set("rate-limit.enabled", false);
+        plugin.getConfig().set("teleport.enabled", false);
+        plugin.getConfig().set("hashing.target-ms", 0);
+        plugin.getConfig().set("hashing.bcrypt.cost", 10);
+        plugin.saveConfig();
+        plugin.reloadPlugin();
+        AuthManager authManager = plugin.getAuthManager();
+        waitFor(() -> plugin.getAccountStorage().isReady());
+        pluginManager = server.getPluginManager();
+
+        mover = join("Mover");
+        if (!"locked".equals(state)) {
+            authManager.handleRegister(mover, PASSWORD);
+            waitFor(() -> authManager.isAuthenticated(mover.getUniqueId()));
+        }
+        if ("registered".equals(state)) {
+            join("Waiting");
+        }
+        from = new Location(world, 10.5, 64.0, -20.5, 90f, 0f);
+        to = new Location(world, 10.7, 64.0, -20.4, 95f, 5f);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    public Location move() {
+        PlayerMoveEvent event = new PlayerMoveEvent(mover, from, to);
+        pluginManager.callEvent(event);
+        return event.getTo();
+    }
+
+    private PlayerMock join(String name) {
+        PlayerMock player = new PlayerMock(server, name, UUID.randomUUID());
+        server.addPlayer(player);
+        return player;
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("benchmark setup timed out");
+            }
+            server.getScheduler().performOneTick();
+            TimeUnit.MILLISECONDS.sleep(10L);
+        }
+    }
+}
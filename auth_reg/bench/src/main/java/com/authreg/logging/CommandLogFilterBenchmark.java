@@ -0,0 +1,67 @@
+package com.authreg.logging;
+
+import com.authreg.command.CommandMatcher;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandLogFilterBenchmark {
+    private CommandLogFilter filter;
+    private LogEvent plainLine;
+    private LogEvent sensitiveCommand;
+    private LogEvent otherCommand;
+    private LogEvent preformattedCommand;
+
+    @Setup
+    public void setUp() {
+        filter = new CommandLogFilter(CommandMatcher.of(List.of("login", "l", "register", "reg", "authreg")));
+        plainLine = event(new SimpleMessage("Saving chunks for level 'ServerLevel[world]'/minecraft:overworld"));
+        sensitiveCommand = event(new ParameterizedMessage("{} issued server command: {}", "Steve", "/login hunter2"));
+        otherCommand = event(new ParameterizedMessage("{} issued server command: {}", "Steve", "/home base"));
+        preformattedCommand = event(new SimpleMessage("Steve issued server command: /reg hunter2 hunter2"));
+    }
+
+    @Benchmark
+    public Object plainLine() {
+        return filter.filter(plainLine);
+    }
+
+    @Benchmark
+    public Object sensitiveCommand() {
+        return filter.filter(sensitiveCommand);
+    }
+
+    @Benchmark
+    public Object otherCommand() {
+        return filter.filter(otherCommand);
+    }
+
+    @Benchmark
+    public Object preformattedCommand() {
+        return filter.filter(preformattedCommand);
+    }
+
+    private static LogEvent event(org.apache.logging.log4j.message.Message message) {
+        return Log4jLogEvent.newBuilder().setLoggerName("Minecraft").setMessage(message).build();
+    }
+}
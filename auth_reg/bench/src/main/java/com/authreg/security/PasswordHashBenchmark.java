@@ -0,0 +1,50 @@
+package com.authreg.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashBenchmark {
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"bcrypt-10", "bcrypt-12", "argon2id-65536-2"})
+    public String hasher;
+
+    private PasswordHasher engine;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        String[] parts = hasher.split("-");
+        engine = parts[0].equals("bcrypt")
+                ? new BCryptHasher(Integer.parseInt(parts[1]))
+                : new Argon2Hasher(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), 1);
+        hash = engine.hash(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return engine.verify(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public boolean needsRehash() {
+        return engine.needsRehash(hash);
+    }
+}
@@ -0,0 +1,112 @@
+package com.authreg.storage;
+
+import com.authreg.config.BenchConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqliteStorageBenchmark {
+    private static final String HASH = "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3hmrAhXh5FM0TuSh6mqX6Xe";
+
+    @Param({"10000"})
+    public int accounts;
+
+    @Param({"256"})
+    public int batchSize;
+
+    private File directory;
+    private SqliteBackend backend;
+    private UUID[] uuids;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("auth_reg-bench").toFile();
+        File db = new File(directory, "accounts.db");
+        backend = new SqliteBackend(db, BenchConfig.sqlite(db.getAbsolutePath()), Logger.getLogger("auth_reg-bench"));
+        backend.open();
+        uuids = new UUID[accounts];
+        names = new String[accounts];
+        long now = System.currentTimeMillis() / 1000L;
+        for (int i = 0; i < accounts; i++) {
+            uuids[i] = UUID.randomUUID();
+            names[i] = "Player" + i;
+            backend.insertAccount(new Account(uuids[i], names[i], HASH, "10.0.0." + (i & 0xFF), now, now,
+                    "world", i * 1.5, 64.0, -i * 1.5, 0f, 0f));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        backend.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        directory.delete();
+    }
+
+    @Benchmark
+    public Optional<Account> findByUuid() throws SQLException {
+        return backend.findByUUID(uuids[ThreadLocalRandom.current().nextInt(accounts)]);
+    }
+
+    @Benchmark
+    public Optional<Account> findByName() throws SQLException {
+        return backend.findByName(names[ThreadLocalRandom.current().nextInt(accounts)]);
+    }
+
+    @Benchmark
+    public void updatePassword() throws SQLException {
+        backend.updatePassword(uuids[ThreadLocalRandom.current().nextInt(accounts)], HASH, System.currentTimeMillis() / 1000L);
+    }
+
+    @Benchmark
+    public void flushLocationBatch() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        WriteBehindBuffer buffer = new WriteBehindBuffer();
+        long now = System.currentTimeMillis() / 1000L;
+        for (int i = 0; i < batchSize; i++) {
+            buffer.location(uuids[random.nextInt(accounts)], "world", random.nextDouble(-1000, 1000), 64.0,
+                    random.nextDouble(-1000, 1000), 0f, 0f, now);
+        }
+        backend.applyWrites(buffer.drain());
+    }
+
+    @Benchmark
+    public void flushSingleLocation() throws SQLException {
+        WriteBehindBuffer buffer = new WriteBehindBuffer();
+        buffer.location(uuids[ThreadLocalRandom.current().nextInt(accounts)], "world", 1.0, 64.0, 1.0, 0f, 0f,
+                System.currentTimeMillis() / 1000L);
+        backend.applyWrites(buffer.drain());
+    }
+}
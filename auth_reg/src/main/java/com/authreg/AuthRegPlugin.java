@@ -7,17 +7,33 @@ import com.authreg.config.AuthConfig;
 import com.authreg.config.Messages;
 import com.authreg.logging.CommandLogFilter;
 import com.authreg.listener.AuthProtectionListener;
+import com.authreg.listener.PlayerConnectionListener;
+import com.authreg.listener.ProtectionGate;
+import com.authreg.listener.WarnThrottle;
+import com.authreg.metrics.Metrics;
+import com.authreg.metrics.PrometheusExporter;
+import com.authreg.security.HashingService;
+import com.authreg.security.LoginRateLimiter;
+import com.authreg.security.SessionTokens;
 import com.authreg.storage.AccountStorage;
+import com.authreg.transfer.AccountTransfer;
 import com.authreg.user.AuthManager;
 import org.bukkit.command.PluginCommand;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+
 public final class AuthRegPlugin extends JavaPlugin {
 
     private AuthConfig authConfig;
     private Messages messages;
     private AccountStorage accountStorage;
+    private HashingService hashingService;
+    private LoginRateLimiter loginRateLimiter;
     private AuthManager authManager;
+    private Metrics metrics;
+    private PrometheusExporter metricsExporter;
+    private AccountTransfer accountTransfer;
 
     @Override
     public void onEnable() {
@@ -26,22 +42,44 @@ public final class AuthRegPlugin extends JavaPlugin {
 
         this.authConfig = new AuthConfig(this);
         this.messages = new Messages(this);
-        this.accountStorage = new AccountStorage(this);
-        this.authManager = new AuthManager(this, accountStorage, authConfig, messages);
-
-        accountStorage.init(authConfig.getDatabaseFile());
+        this.metrics = new Metrics();
+        this.accountStorage = new AccountStorage(this, metrics);
+        this.hashingService = new HashingService(authConfig.getHashingWorkers(), authConfig.getHashingQueueSize(), getLogger(), metrics);
+        hashingService.configure(authConfig.getHashingSettings());
+        this.loginRateLimiter = newRateLimiter(authConfig.getRateLimitSettings());
+        ProtectionGate protectionGate = new ProtectionGate(this);
+        SessionTokens sessionTokens = new SessionTokens(new File(getDataFolder(), "session.key"), getLogger());
+        this.authManager = new AuthManager(this, accountStorage, hashingService, loginRateLimiter, sessionTokens,
+                authConfig, messages, protectionGate);
+
+        accountStorage.init(authConfig.getDatabaseSettings());
+        this.accountTransfer = new AccountTransfer(this);
         CommandLogFilter.register(this);
 
         registerCommands();
-        getServer().getPluginManager().registerEvents(new AuthProtectionListener(authManager, messages, authConfig), this);
+        WarnThrottle warnThrottle = new WarnThrottle();
+        getServer().getPluginManager().registerEvents(new PlayerConnectionListener(authManager, warnThrottle), this);
+        protectionGate.bind(new AuthProtectionListener(authManager, messages, authConfig, warnThrottle));
+
+        this.metricsExporter = new PrometheusExporter(this, metrics);
+        startMetricsExport();
     }
 
     @Override
     public void onDisable() {
+        if (metricsExporter != null) {
+            metricsExporter.stop();
+        }
+        if (accountTransfer != null) {
+            accountTransfer.shutdown();
+        }
         if (authManager != null) {
             authManager.saveOnlineLocationsNow();
             authManager.shutdown();
         }
+        if (hashingService != null) {
+            hashingService.close();
+        }
         if (accountStorage != null) {
             accountStorage.close();
         }
@@ -51,7 +89,15 @@ public final class AuthRegPlugin extends JavaPlugin {
         reloadConfig();
         messages.reload();
         authConfig.reload();
-        accountStorage.init(authConfig.getDatabaseFile());
+        hashingService.resize(authConfig.getHashingWorkers());
+        hashingService.configure(authConfig.getHashingSettings());
+        AuthConfig.RateLimitSettings rate = authConfig.getRateLimitSettings();
+        loginRateLimiter.configure(rate.isEnabled(), rate.getAttemptsPerMinute(), rate.getBurst(),
+                rate.getPrefixAttemptsPerMinute(), rate.getPrefixBurst(), rate.getConnectionsPerMinute(), rate.getConnectionBurst(),
+                rate.getTableSize());
+        authManager.getIpCooldowns().setMaxEntries(authConfig.getIpCooldownMaxEntries());
+        accountStorage.init(authConfig.getDatabaseSettings());
+        startMetricsExport();
     }
 
     public AuthConfig getAuthConfig() {
@@ -66,10 +112,41 @@ public final class AuthRegPlugin extends JavaPlugin {
         return accountStorage;
     }
 
+    public HashingService getHashingService() {
+        return hashingService;
+    }
+
+    public LoginRateLimiter getLoginRateLimiter() {
+        return loginRateLimiter;
+    }
+
     public AuthManager getAuthManager() {
         return authManager;
     }
 
+    public AccountTransfer getAccountTransfer() {
+        return accountTransfer;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    private void startMetricsExport() {
+        AuthConfig.MetricsSettings settings = authConfig.getMetricsSettings();
+        if (settings.isExportEnabled()) {
+            metricsExporter.start(settings.getExportFile(), settings.getExportIntervalSeconds());
+        } else {
+            metricsExporter.stop();
+        }
+    }
+
+    private LoginRateLimiter newRateLimiter(AuthConfig.RateLimitSettings rate) {
+        return new LoginRateLimiter(rate.isEnabled(), rate.getAttemptsPerMinute(), rate.getBurst(),
+                rate.getPrefixAttemptsPerMinute(), rate.getPrefixBurst(), rate.getConnectionsPerMinute(), rate.getConnectionBurst(),
+                rate.getTableSize());
+    }
+
     private void registerCommands() {
         PluginCommand register = getCommand("register");
         if (register != null) {
@@ -1,19 +1,31 @@
 package com.authreg.command;
 
 import com.authreg.AuthRegPlugin;
+import com.authreg.metrics.LatencyHistogram;
+import com.authreg.metrics.Metrics;
+import com.authreg.security.HashingService;
+import com.authreg.security.IpCooldownTable;
+import com.authreg.security.LoginRateLimiter;
 import com.authreg.storage.Account;
+import com.authreg.transfer.AccountTransfer;
+import com.authreg.transfer.TransferFormat;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.command.ConsoleCommandSender;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
 public class AdminCommand implements CommandExecutor, TabCompleter {
     private final AuthRegPlugin plugin;
@@ -36,8 +48,7 @@ public class AdminCommand implements CommandExecutor, TabCompleter {
         }
 
         if (args.length == 0) {
-            sender.sendMessage("/authreg reload");
-            sender.sendMessage("/authreg reset <ник> <новый_пароль>");
+            sendUsage(sender);
             return true;
         }
         switch (args[0].toLowerCase()) {
@@ -53,20 +64,38 @@ public class AdminCommand implements CommandExecutor, TabCompleter {
                 String target = args[1];
                 String newPass = args[2];
                 CompletableFuture<Optional<Account>> future = plugin.getAccountStorage().findByNameAsync(target);
-                future.thenAccept(opt -> {
+                future.whenComplete((opt, storageError) -> {
+                    if (storageError != null) {
+                        sendLater(sender, plugin.getMessages().get("storage.unavailable"));
+                        return;
+                    }
                     if (opt.isEmpty()) {
                         sendLater(sender, plugin.getMessages().format("admin.reset_not_found", Map.of("player", target)));
                         return;
                     }
-                    String hash = org.mindrot.jbcrypt.BCrypt.hashpw(newPass, org.mindrot.jbcrypt.BCrypt.gensalt());
-                    plugin.getAccountStorage().updatePasswordAsync(opt.get().getUuid(), hash).thenRun(() ->
-                            sendLater(sender, plugin.getMessages().format("admin.reset_success", Map.of("player", opt.get().getName())))
-                    );
+                    plugin.getHashingService().hashAsync(newPass).whenComplete((hash, error) -> {
+                        if (error != null) {
+                            sendLater(sender, plugin.getMessages().get("hashing.busy"));
+                            return;
+                        }
+                        plugin.getAuthManager().revokeSession(opt.get().getUuid());
+                        plugin.getAccountStorage().updatePasswordAsync(opt.get().getUuid(), hash).whenComplete((ignored, writeError) ->
+                                sendLater(sender, writeError != null
+                                        ? plugin.getMessages().get("storage.unavailable")
+                                        : plugin.getMessages().format("admin.reset_success", Map.of("player", opt.get().getName())))
+                        );
+                    });
                 });
                 return true;
+            case "stats":
+                sendStats(sender);
+                return true;
+            case "import":
+            case "export":
+                transfer(sender, args);
+                return true;
             default:
-                sender.sendMessage("/authreg reload");
-                sender.sendMessage("/authreg reset <ник> <новый_пароль>");
+                sendUsage(sender);
                 return true;
         }
     }
@@ -81,11 +110,101 @@ public class AdminCommand implements CommandExecutor, TabCompleter {
             return Collections.emptyList();
         }
         if (args.length == 1) {
-            return Arrays.asList("reload", "reset");
+            return Arrays.asList("reload", "reset", "stats", "import", "export");
+        }
+        if (args.length == 2 && (args[0].equalsIgnoreCase("import") || args[0].equalsIgnoreCase("export"))) {
+            List<String> formats = new ArrayList<>();
+            for (TransferFormat format : TransferFormat.values()) {
+                if (args[0].equalsIgnoreCase("import") || format.isExportable()) {
+                    formats.add(format.id());
+                }
+            }
+            return formats;
         }
         return Collections.emptyList();
     }
 
+    private void sendUsage(CommandSender sender) {
+        sender.sendMessage("/authreg reload");
+        sender.sendMessage("/authreg reset <ник> <новый_пароль>");
+        sender.sendMessage("/authreg stats");
+        sender.sendMessage("/authreg import <csv|jsonl|authme> <файл>");
+        sender.sendMessage("/authreg export <csv|jsonl> <файл>");
+    }
+
+    private void transfer(CommandSender sender, String[] args) {
+        boolean export = args[0].equalsIgnoreCase("export");
+        TransferFormat format = args.length < 3 ? null : TransferFormat.byName(args[1]);
+        if (format == null || (export && !format.isExportable())) {
+            sender.sendMessage(export ? "/authreg export <csv|jsonl> <файл>" : "/authreg import <csv|jsonl|authme> <файл>");
+            return;
+        }
+        AccountTransfer transfer = plugin.getAccountTransfer();
+        File file = transfer.resolve(args[2], export);
+        if (file == null) {
+            sender.sendMessage(export
+                    ? "Файл экспорта должен находиться в папке плагина."
+                    : "Файл импорта должен находиться в папке plugins.");
+            return;
+        }
+        if (!export && !file.isFile()) {
+            sender.sendMessage("Файл не найден: " + file.getPath());
+            return;
+        }
+        if (export && file.exists()) {
+            sender.sendMessage("Файл уже существует: " + file.getPath());
+            return;
+        }
+        boolean started = export ? transfer.startExport(sender, format, file) : transfer.startImport(sender, format, file);
+        if (!started) {
+            sender.sendMessage("Импорт или экспорт уже выполняется.");
+            return;
+        }
+        sender.sendMessage((export ? "Экспорт в " : "Импорт из ") + file.getName() + " запущен, прогресс будет выводиться каждые 5 секунд.");
+        if (!export && plugin.getServer().getOnlineMode()) {
+            sender.sendMessage("Сервер в online-режиме: для строк без uuid будет вычислен offline-UUID, такие аккаунты не совпадут с лицензионными игроками.");
+        }
+    }
+
+    private void sendStats(CommandSender sender) {
+        HashingService hashing = plugin.getHashingService();
+        sender.sendMessage(String.format(Locale.ROOT,
+                "Хеширование (%s): потоков %d (занято %d), очередь %d/%d, выполнено %d, отклонено %d, среднее %.1f мс, макс %.1f мс",
+                hashing.getHasherDescription(), hashing.getWorkers(), hashing.getActiveWorkers(), hashing.getQueueDepth(), hashing.getQueueCapacity(),
+                hashing.getCompleted(), hashing.getRejected(), hashing.getAverageMillis(), hashing.getMaxMillis()));
+        sender.sendMessage("База данных: ожидают записи " + plugin.getAccountStorage().getPendingWrites());
+        LoginRateLimiter limiter = plugin.getLoginRateLimiter();
+        sender.sendMessage("Ограничение попыток: пропущено " + limiter.getAllowed() + ", отклонено " + limiter.getRejected()
+                + ", вытеснено из таблицы " + limiter.getEvicted() + " (ёмкость " + limiter.getCapacity() + ")");
+        IpCooldownTable cooldowns = plugin.getAuthManager().getIpCooldowns();
+        sender.sendMessage("Кулдаун IP: записей " + cooldowns.size() + "/" + cooldowns.maxEntries()
+                + ", вытеснено при переполнении " + cooldowns.evicted() + ", память ~" + cooldowns.memoryBytes() / 1024L + " КБ");
+        sendMetrics(sender, plugin.getMetrics());
+    }
+
+    private void sendMetrics(CommandSender sender, Metrics metrics) {
+        StringBuilder counters = new StringBuilder("Счётчики:");
+        for (Map.Entry<String, LongAdder> entry : metrics.getCounters().entrySet()) {
+            counters.append(' ').append(entry.getKey()).append('=').append(entry.getValue().sum());
+        }
+        sender.sendMessage(counters.toString());
+        StringBuilder gauges = new StringBuilder("Текущие значения:");
+        for (Map.Entry<String, LongSupplier> entry : metrics.getGauges().entrySet()) {
+            gauges.append(' ').append(entry.getKey()).append('=').append(entry.getValue().getAsLong());
+        }
+        sender.sendMessage(gauges.toString());
+        sender.sendMessage("Задержки (p50 / p99 / макс, мс):");
+        for (Map.Entry<String, LatencyHistogram> entry : metrics.getHistograms().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            if (histogram.getCount() == 0L) {
+                continue;
+            }
+            sender.sendMessage(String.format(Locale.ROOT, "  %s: %.2f / %.2f / %.2f (%d)", entry.getKey(),
+                    histogram.percentileNanos(0.5) / 1e6, histogram.percentileNanos(0.99) / 1e6,
+                    histogram.getMaxNanos() / 1e6, histogram.getCount()));
+        }
+    }
+
     private void sendLater(CommandSender sender, String message) {
         plugin.getServer().getGlobalRegionScheduler().execute(plugin, () -> sender.sendMessage(message));
     }
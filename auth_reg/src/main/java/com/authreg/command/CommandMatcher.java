@@ -0,0 +1,170 @@
+package com.authreg.command;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandMap;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public final class CommandMatcher {
+    private static final CommandMatcher EMPTY = new CommandMatcher(new LinkedHashSet<>());
+
+    private final String[] table;
+    private final int mask;
+    private final int size;
+
+    private CommandMatcher(Set<String> labels) {
+        int capacity = 2;
+        while (capacity < labels.size() * 2) {
+            capacity <<= 1;
+        }
+        this.table = new String[capacity];
+        this.mask = capacity - 1;
+        this.size = labels.size();
+        for (String label : labels) {
+            int slot = spread(hash(label, 0, label.length())) & mask;
+            while (table[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = label;
+        }
+    }
+
+    public static CommandMatcher empty() {
+        return EMPTY;
+    }
+
+    public static CommandMatcher compile(Plugin plugin, Collection<String> commands) {
+        Set<String> labels = new LinkedHashSet<>();
+        CommandMap commandMap = plugin == null || plugin.getServer() == null ? null : plugin.getServer().getCommandMap();
+        String namespace = plugin == null ? null : normalize(plugin.getName()) + ":";
+        for (String raw : commands) {
+            if (raw == null) {
+                continue;
+            }
+            String label = normalize(raw);
+            if (label.isEmpty()) {
+                continue;
+            }
+            Command command = commandMap == null ? null : commandMap.getCommand(label);
+            if (command instanceof PluginCommand pluginCommand && pluginCommand.getPlugin() == plugin) {
+                addCommand(labels, command, namespace);
+            } else {
+                addLabel(labels, label, namespace);
+            }
+        }
+        return labels.isEmpty() ? EMPTY : new CommandMatcher(labels);
+    }
+
+    public static CommandMatcher of(Collection<String> labels) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String label : labels) {
+            String value = normalize(label);
+            if (!value.isEmpty()) {
+                normalized.add(value);
+            }
+        }
+        return normalized.isEmpty() ? EMPTY : new CommandMatcher(normalized);
+    }
+
+    public boolean matches(CharSequence text) {
+        return text != null && matches(text, 0, text.length());
+    }
+
+    public boolean matches(CharSequence text, int start, int end) {
+        if (size == 0 || start >= end) {
+            return false;
+        }
+        int from = text.charAt(start) == '/' ? start + 1 : start;
+        int to = from;
+        int hash = 0;
+        while (to < end) {
+            char c = text.charAt(to);
+            if (Character.isWhitespace(c)) {
+                break;
+            }
+            hash = 31 * hash + Character.toLowerCase(c);
+            to++;
+        }
+        int length = to - from;
+        if (length == 0) {
+            return false;
+        }
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            String candidate = table[slot];
+            if (candidate == null) {
+                return false;
+            }
+            if (candidate.length() == length && regionEquals(candidate, text, from)) {
+                return true;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static void addCommand(Set<String> labels, Command command, String namespace) {
+        addLabel(labels, command.getName(), namespace);
+        if (command.getAliases() != null) {
+            for (String alias : command.getAliases()) {
+                addLabel(labels, alias, namespace);
+            }
+        }
+    }
+
+    private static void addLabel(Set<String> labels, String raw, String namespace) {
+        if (raw == null) {
+            return;
+        }
+        String label = normalize(raw);
+        if (label.isEmpty()) {
+            return;
+        }
+        labels.add(label);
+        if (namespace != null && !label.startsWith(namespace)) {
+            labels.add(namespace + label);
+        }
+    }
+
+    private static String normalize(String raw) {
+        String value = raw.trim();
+        if (value.startsWith("/")) {
+            value = value.substring(1);
+        }
+        int space = value.indexOf(' ');
+        if (space >= 0) {
+            value = value.substring(0, space);
+        }
+        StringBuilder lower = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            lower.append(Character.toLowerCase(value.charAt(i)));
+        }
+        return lower.toString();
+    }
+
+    private static boolean regionEquals(String candidate, CharSequence text, int from) {
+        for (int i = 0; i < candidate.length(); i++) {
+            if (Character.toLowerCase(text.charAt(from + i)) != candidate.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence text, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+        }
+        return hash;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
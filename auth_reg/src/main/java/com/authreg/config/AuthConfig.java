@@ -1,25 +1,40 @@
 package com.authreg.config;
 
+import com.authreg.command.CommandMatcher;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import net.kyori.adventure.title.Title;
+import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 public class AuthConfig {
     private final JavaPlugin plugin;
     private int maxAttempts;
     private int timeoutSeconds;
     private int ipCooldownSeconds;
+    private int ipCooldownMaxEntries;
     private int reminderSeconds;
+    private int autosaveSeconds;
     private TitleSettings titleSettings;
     private ProtectionSettings protectionSettings;
     private TeleportSettings teleportSettings;
-    private String databaseFile;
+    private DatabaseSettings databaseSettings;
+    private RateLimitSettings rateLimitSettings;
+    private SessionSettings sessionSettings;
+    private HashingSettings hashingSettings;
+    private MetricsSettings metricsSettings;
     private boolean consoleOnlyAdmin;
+    private int hashingWorkers;
+    private int hashingQueueSize;
+    private int transferBatchSize;
 
     public AuthConfig(JavaPlugin plugin) {
         this.plugin = plugin;
@@ -31,12 +46,22 @@ public class AuthConfig {
         this.maxAttempts = cfg.getInt("login.max-attempts", 5);
         this.timeoutSeconds = cfg.getInt("login.timeout-seconds", 60);
         this.ipCooldownSeconds = cfg.getInt("login.ip-cooldown-seconds", 120);
+        this.ipCooldownMaxEntries = Math.max(64, cfg.getInt("login.ip-cooldown-max-entries", 65536));
         this.reminderSeconds = Math.max(1, cfg.getInt("login.reminder-seconds", 10));
+        this.autosaveSeconds = cfg.getBoolean("autosave.enabled", true) ? Math.max(1, cfg.getInt("autosave.interval-seconds", 300)) : 0;
         this.titleSettings = new TitleSettings(cfg);
-        this.protectionSettings = new ProtectionSettings(cfg);
+        this.protectionSettings = new ProtectionSettings(plugin, cfg);
         this.teleportSettings = new TeleportSettings(plugin, cfg);
-        this.databaseFile = cfg.getString("database.file", "plugins/auth_reg/data/auth.db");
+        this.databaseSettings = new DatabaseSettings(cfg);
+        this.rateLimitSettings = new RateLimitSettings(cfg);
+        this.sessionSettings = new SessionSettings(cfg);
         this.consoleOnlyAdmin = cfg.getBoolean("admin.console-only", true);
+        int workers = cfg.getInt("hashing.workers", 0);
+        this.hashingWorkers = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.hashingQueueSize = Math.max(1, cfg.getInt("hashing.queue-size", 256));
+        this.hashingSettings = new HashingSettings(plugin, cfg);
+        this.metricsSettings = new MetricsSettings(plugin, cfg);
+        this.transferBatchSize = Math.max(1, Math.min(10000, cfg.getInt("transfer.batch-size", 1000)));
     }
 
     public int getMaxAttempts() {
@@ -51,10 +76,18 @@ public class AuthConfig {
         return ipCooldownSeconds;
     }
 
+    public int getIpCooldownMaxEntries() {
+        return ipCooldownMaxEntries;
+    }
+
     public int getReminderSeconds() {
         return reminderSeconds;
     }
 
+    public int getAutosaveSeconds() {
+        return autosaveSeconds;
+    }
+
     public TitleSettings getTitleSettings() {
         return titleSettings;
     }
@@ -67,14 +100,42 @@ public class AuthConfig {
         return teleportSettings;
     }
 
-    public String getDatabaseFile() {
-        return databaseFile;
+    public DatabaseSettings getDatabaseSettings() {
+        return databaseSettings;
+    }
+
+    public RateLimitSettings getRateLimitSettings() {
+        return rateLimitSettings;
+    }
+
+    public SessionSettings getSessionSettings() {
+        return sessionSettings;
+    }
+
+    public HashingSettings getHashingSettings() {
+        return hashingSettings;
+    }
+
+    public MetricsSettings getMetricsSettings() {
+        return metricsSettings;
+    }
+
+    public int getTransferBatchSize() {
+        return transferBatchSize;
     }
 
     public boolean isConsoleOnlyAdmin() {
         return consoleOnlyAdmin;
     }
 
+    public int getHashingWorkers() {
+        return hashingWorkers;
+    }
+
+    public int getHashingQueueSize() {
+        return hashingQueueSize;
+    }
+
     public static class TitleSettings {
         private final boolean enabled;
         private final String title;
@@ -82,6 +143,7 @@ public class AuthConfig {
         private final int fadeIn;
         private final int stay;
         private final int fadeOut;
+        private final Title compiled;
 
         TitleSettings(FileConfiguration cfg) {
             this.enabled = cfg.getBoolean("login.title.enabled", true);
@@ -90,6 +152,15 @@ public class AuthConfig {
             this.fadeIn = cfg.getInt("login.title.fade-in", 5);
             this.stay = cfg.getInt("login.title.stay", 40);
             this.fadeOut = cfg.getInt("login.title.fade-out", 5);
+            LegacyComponentSerializer serializer = LegacyComponentSerializer.legacySection();
+            this.compiled = Title.title(
+                    serializer.deserialize(ChatColor.translateAlternateColorCodes('&', title == null ? "" : title)),
+                    serializer.deserialize(ChatColor.translateAlternateColorCodes('&', subtitle == null ? "" : subtitle)),
+                    Title.Times.times(ticks(fadeIn), ticks(stay), ticks(fadeOut)));
+        }
+
+        private static Duration ticks(int ticks) {
+            return Duration.ofMillis(Math.max(0, ticks) * 50L);
         }
 
         public boolean isEnabled() {
@@ -115,6 +186,10 @@ public class AuthConfig {
         public int getFadeOut() {
             return fadeOut;
         }
+
+        public Title getCompiledTitle() {
+            return compiled;
+        }
     }
 
     public static class ProtectionSettings {
@@ -125,8 +200,10 @@ public class AuthConfig {
         private final boolean lockInventory;
         private final boolean lockItemSwitch;
         private final List<String> allowedCommands;
+        private final CommandMatcher allowedCommandMatcher;
+        private final long warnIntervalMillis;
 
-        ProtectionSettings(FileConfiguration cfg) {
+        ProtectionSettings(JavaPlugin plugin, FileConfiguration cfg) {
             this.lockMovement = cfg.getBoolean("protection.lock-movement", true);
             this.lockCommands = cfg.getBoolean("protection.lock-commands", true);
             this.lockDamage = cfg.getBoolean("protection.lock-damage", true);
@@ -135,6 +212,8 @@ public class AuthConfig {
             this.lockItemSwitch = cfg.getBoolean("protection.lock-item-switch", true);
             List<String> cmds = cfg.getStringList("protection.allowed-commands");
             this.allowedCommands = cmds == null ? Collections.emptyList() : cmds;
+            this.allowedCommandMatcher = CommandMatcher.compile(plugin, allowedCommands);
+            this.warnIntervalMillis = Math.max(0L, cfg.getLong("protection.warn-interval-ms", 1500L));
         }
 
         public boolean isLockMovement() {
@@ -164,6 +243,207 @@ public class AuthConfig {
         public List<String> getAllowedCommands() {
             return allowedCommands;
         }
+
+        public CommandMatcher getAllowedCommandMatcher() {
+            return allowedCommandMatcher;
+        }
+
+        public long getWarnIntervalMillis() {
+            return warnIntervalMillis;
+        }
+    }
+
+    public static class DatabaseSettings {
+        private final String type;
+        private final String file;
+        private final int cacheMaxSize;
+        private final int cacheTtlSeconds;
+        private final int sharedCacheTtlSeconds;
+        private final int readerConnections;
+        private final int busyTimeoutMillis;
+        private final int mmapSizeMb;
+        private final String synchronous;
+        private final long writeBehindIntervalMillis;
+        private final int writeBehindMaxBatch;
+        private final int shutdownTimeoutSeconds;
+        private final String host;
+        private final int port;
+        private final String database;
+        private final String username;
+        private final String password;
+        private final String tablePrefix;
+        private final int poolSize;
+        private final long connectionTimeoutMillis;
+        private final int queryTimeoutSeconds;
+        private final long requestTimeoutMillis;
+
+        DatabaseSettings(FileConfiguration cfg) {
+            this.type = cfg.getString("database.type", "sqlite").toLowerCase();
+            this.file = cfg.getString("database.file", "plugins/auth_reg/data/auth.db");
+            this.cacheMaxSize = Math.max(1, cfg.getInt("database.cache.max-size", 10000));
+            this.cacheTtlSeconds = Math.max(1, cfg.getInt("database.cache.ttl-seconds", 900));
+            this.sharedCacheTtlSeconds = Math.max(0, cfg.getInt("database.cache.shared-ttl-seconds", 5));
+            int readers = cfg.getInt("database.readers", 0);
+            this.readerConnections = readers > 0 ? readers : Math.min(4, Runtime.getRuntime().availableProcessors());
+            this.busyTimeoutMillis = Math.max(0, cfg.getInt("database.busy-timeout-ms", 5000));
+            this.mmapSizeMb = Math.max(0, cfg.getInt("database.mmap-size-mb", 64));
+            this.synchronous = cfg.getString("database.synchronous", "NORMAL").toUpperCase();
+            this.writeBehindIntervalMillis = Math.max(100L, cfg.getLong("database.write-behind.flush-interval-ms", 2000L));
+            this.writeBehindMaxBatch = Math.max(1, cfg.getInt("database.write-behind.max-batch", 256));
+            this.shutdownTimeoutSeconds = Math.max(1, cfg.getInt("database.write-behind.shutdown-timeout-seconds", 10));
+            this.host = cfg.getString("database.sql.host", "localhost");
+            this.port = cfg.getInt("database.sql.port", type.startsWith("postgres") ? 5432 : 3306);
+            this.database = cfg.getString("database.sql.database", "auth_reg");
+            this.username = cfg.getString("database.sql.username", "auth_reg");
+            this.password = cfg.getString("database.sql.password", "");
+            this.tablePrefix = cfg.getString("database.sql.table-prefix", "authreg_");
+            this.poolSize = Math.max(1, cfg.getInt("database.sql.pool-size", 8));
+            this.connectionTimeoutMillis = Math.max(250L, cfg.getLong("database.sql.connection-timeout-ms", 5000L));
+            this.queryTimeoutSeconds = Math.max(1, cfg.getInt("database.sql.query-timeout-seconds", 5));
+            this.requestTimeoutMillis = Math.max(250L, cfg.getLong("database.sql.request-timeout-ms", 8000L));
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public int getCacheMaxSize() {
+            return cacheMaxSize;
+        }
+
+        public int getCacheTtlSeconds() {
+            return cacheTtlSeconds;
+        }
+
+        public int getSharedCacheTtlSeconds() {
+            return sharedCacheTtlSeconds;
+        }
+
+        public int getReaderConnections() {
+            return readerConnections;
+        }
+
+        public int getBusyTimeoutMillis() {
+            return busyTimeoutMillis;
+        }
+
+        public int getMmapSizeMb() {
+            return mmapSizeMb;
+        }
+
+        public String getSynchronous() {
+            return synchronous;
+        }
+
+        public long getWriteBehindIntervalMillis() {
+            return writeBehindIntervalMillis;
+        }
+
+        public int getWriteBehindMaxBatch() {
+            return writeBehindMaxBatch;
+        }
+
+        public int getShutdownTimeoutSeconds() {
+            return shutdownTimeoutSeconds;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public String getDatabase() {
+            return database;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public String getTablePrefix() {
+            return tablePrefix;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public long getConnectionTimeoutMillis() {
+            return connectionTimeoutMillis;
+        }
+
+        public int getQueryTimeoutSeconds() {
+            return queryTimeoutSeconds;
+        }
+
+        public long getRequestTimeoutMillis() {
+            return requestTimeoutMillis;
+        }
+    }
+
+    public static class RateLimitSettings {
+        private final boolean enabled;
+        private final int attemptsPerMinute;
+        private final int burst;
+        private final int prefixAttemptsPerMinute;
+        private final int prefixBurst;
+        private final int connectionsPerMinute;
+        private final int connectionBurst;
+        private final int tableSize;
+
+        RateLimitSettings(FileConfiguration cfg) {
+            this.enabled = cfg.getBoolean("rate-limit.enabled", true);
+            this.attemptsPerMinute = Math.max(0, cfg.getInt("rate-limit.attempts-per-minute", 10));
+            this.burst = Math.max(1, cfg.getInt("rate-limit.burst", 5));
+            this.prefixAttemptsPerMinute = Math.max(0, cfg.getInt("rate-limit.ipv6-prefix-attempts-per-minute", 30));
+            this.prefixBurst = Math.max(1, cfg.getInt("rate-limit.ipv6-prefix-burst", 15));
+            this.connectionsPerMinute = Math.max(0, cfg.getInt("rate-limit.connections-per-minute", 20));
+            this.connectionBurst = Math.max(1, cfg.getInt("rate-limit.connection-burst", 10));
+            this.tableSize = Math.max(1024, cfg.getInt("rate-limit.table-size", 65536));
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public int getAttemptsPerMinute() {
+            return attemptsPerMinute;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public int getPrefixAttemptsPerMinute() {
+            return prefixAttemptsPerMinute;
+        }
+
+        public int getPrefixBurst() {
+            return prefixBurst;
+        }
+
+        public int getConnectionsPerMinute() {
+            return connectionsPerMinute;
+        }
+
+        public int getConnectionBurst() {
+            return connectionBurst;
+        }
+
+        public int getTableSize() {
+            return tableSize;
+        }
     }
 
     public static class TeleportSettings {
@@ -210,4 +490,99 @@ public class AuthConfig {
             return fixedLocation;
         }
     }
+
+    public static class SessionSettings {
+        private final boolean enabled;
+        private final long lifetimeMillis;
+
+        SessionSettings(FileConfiguration cfg) {
+            this.enabled = cfg.getBoolean("sessions.enabled", false);
+            this.lifetimeMillis = Math.max(1, cfg.getInt("sessions.lifetime-minutes", 15)) * 60_000L;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public long getLifetimeMillis() {
+            return lifetimeMillis;
+        }
+    }
+
+    public static class MetricsSettings {
+        private final boolean exportEnabled;
+        private final int exportIntervalSeconds;
+        private final File exportFile;
+
+        MetricsSettings(JavaPlugin plugin, FileConfiguration cfg) {
+            this.exportEnabled = cfg.getBoolean("metrics.export-enabled", false);
+            this.exportIntervalSeconds = Math.max(5, cfg.getInt("metrics.export-interval-seconds", 30));
+            this.exportFile = new File(plugin.getDataFolder(), cfg.getString("metrics.file", "metrics.prom"));
+        }
+
+        public boolean isExportEnabled() {
+            return exportEnabled;
+        }
+
+        public int getExportIntervalSeconds() {
+            return exportIntervalSeconds;
+        }
+
+        public File getExportFile() {
+            return exportFile;
+        }
+    }
+
+    public static class HashingSettings {
+        private final String algorithm;
+        private final int targetMillis;
+        private final int bcryptCost;
+        private final int argon2MemoryKb;
+        private final int argon2Iterations;
+        private final int argon2Parallelism;
+        private final boolean rehashOnLogin;
+
+        HashingSettings(JavaPlugin plugin, FileConfiguration cfg) {
+            String configured = cfg.getString("hashing.algorithm", "bcrypt").toLowerCase(Locale.ROOT);
+            if (!configured.equals("bcrypt") && !configured.equals("argon2id")) {
+                plugin.getLogger().warning("Unknown hashing.algorithm '" + configured + "', using bcrypt.");
+                configured = "bcrypt";
+            }
+            this.algorithm = configured;
+            this.targetMillis = Math.max(0, cfg.getInt("hashing.target-ms", 250));
+            this.bcryptCost = Math.max(10, Math.min(16, cfg.getInt("hashing.bcrypt.cost", 10)));
+            this.argon2MemoryKb = Math.max(8192, cfg.getInt("hashing.argon2.memory-kb", 65536));
+            this.argon2Iterations = Math.max(1, cfg.getInt("hashing.argon2.iterations", 2));
+            this.argon2Parallelism = Math.max(1, cfg.getInt("hashing.argon2.parallelism", 1));
+            this.rehashOnLogin = cfg.getBoolean("hashing.rehash-on-login", true);
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        public int getTargetMillis() {
+            return targetMillis;
+        }
+
+        public int getBcryptCost() {
+            return bcryptCost;
+        }
+
+        public int getArgon2MemoryKb() {
+            return argon2MemoryKb;
+        }
+
+        public int getArgon2Iterations() {
+            return argon2Iterations;
+        }
+
+        public int getArgon2Parallelism() {
+            return argon2Parallelism;
+        }
+
+        public boolean isRehashOnLogin() {
+            return rehashOnLogin;
+        }
+    }
 }
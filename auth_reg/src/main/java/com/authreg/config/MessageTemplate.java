@@ -0,0 +1,98 @@
+package com.authreg.config;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public final class MessageTemplate {
+    private final String source;
+    private final String[] literals;
+    private final String[] slots;
+    private final int literalLength;
+    private final Component component;
+
+    private MessageTemplate(String source, String[] literals, String[] slots) {
+        this.source = source;
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+        this.component = slots.length == 0 ? LegacyComponentSerializer.legacySection().deserialize(source) : null;
+    }
+
+    public static MessageTemplate compile(String text) {
+        String source = text == null ? "" : text;
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        int from = 0;
+        int open = source.indexOf('{');
+        while (open >= 0) {
+            int close = source.indexOf('}', open + 1);
+            if (close < 0) {
+                break;
+            }
+            String name = source.substring(open + 1, close);
+            if (name.isEmpty() || name.indexOf('{') >= 0 || name.indexOf(' ') >= 0) {
+                open = source.indexOf('{', open + 1);
+                continue;
+            }
+            literals.add(source.substring(from, open));
+            slots.add(name);
+            from = close + 1;
+            open = source.indexOf('{', from);
+        }
+        literals.add(source.substring(from));
+        return new MessageTemplate(source, literals.toArray(new String[0]), slots.toArray(new String[0]));
+    }
+
+    public String text() {
+        return source;
+    }
+
+    public Component component() {
+        return component != null ? component : LegacyComponentSerializer.legacySection().deserialize(source);
+    }
+
+    public String render(String key, String value) {
+        if (slots.length == 0) {
+            return source;
+        }
+        StringBuilder out = new StringBuilder(literalLength + slots.length * (value == null ? 4 : value.length()));
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            if (slots[i].equals(key)) {
+                out.append(value);
+            } else {
+                out.append('{').append(slots[i]).append('}');
+            }
+        }
+        return out.append(literals[slots.length]).toString();
+    }
+
+    public String render(Map<String, String> values) {
+        if (slots.length == 0) {
+            return source;
+        }
+        StringBuilder out = new StringBuilder(literalLength + slots.length * 8);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            String value = values.get(slots[i]);
+            if (value != null) {
+                out.append(value);
+            } else {
+                out.append('{').append(slots[i]).append('}');
+            }
+        }
+        return out.append(literals[slots.length]).toString();
+    }
+
+    public Component renderComponent(String key, String value) {
+        return slots.length == 0 ? component : LegacyComponentSerializer.legacySection().deserialize(render(key, value));
+    }
+}
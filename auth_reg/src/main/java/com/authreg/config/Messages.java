@@ -1,5 +1,6 @@
 package com.authreg.config;
 
+import net.kyori.adventure.text.Component;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -7,12 +8,16 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.Map;
 
 public class Messages {
     private final JavaPlugin plugin;
-    private FileConfiguration messagesCfg;
-    private String prefix;
+    private volatile Compiled compiled = new Compiled("", Map.of(), Map.of());
 
     public Messages(JavaPlugin plugin) {
         this.plugin = plugin;
@@ -24,34 +29,67 @@ public class Messages {
         if (!file.exists()) {
             plugin.saveResource("messages.yml", false);
         }
-        this.messagesCfg = YamlConfiguration.loadConfiguration(file);
-        this.prefix = color(messagesCfg.getString("prefix", "&7[Auth]"));
+        FileConfiguration messagesCfg = YamlConfiguration.loadConfiguration(file);
+        InputStream bundled = plugin.getResource("messages.yml");
+        if (bundled != null) {
+            try (Reader reader = new InputStreamReader(bundled, StandardCharsets.UTF_8)) {
+                messagesCfg.setDefaults(YamlConfiguration.loadConfiguration(reader));
+                messagesCfg.options().copyDefaults(true);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to read bundled messages.yml: " + e.getMessage());
+            }
+        }
+        String prefix = color(messagesCfg.getString("prefix", "&7[Auth]"));
+        Map<String, MessageTemplate> prefixed = new HashMap<>();
+        Map<String, MessageTemplate> raw = new HashMap<>();
+        for (String path : messagesCfg.getKeys(true)) {
+            if (!messagesCfg.isString(path)) {
+                continue;
+            }
+            String colored = color(messagesCfg.getString(path));
+            prefixed.put(path, MessageTemplate.compile(prefix + " " + colored));
+            raw.put(path, MessageTemplate.compile(colored));
+        }
+        this.compiled = new Compiled(prefix, prefixed, raw);
+    }
+
+    public MessageTemplate template(String path) {
+        Compiled current = compiled;
+        MessageTemplate template = current.prefixed.get(path);
+        return template != null ? template : MessageTemplate.compile(current.prefix + " " + path);
+    }
+
+    public MessageTemplate rawTemplate(String path) {
+        MessageTemplate template = compiled.raw.get(path);
+        return template != null ? template : MessageTemplate.compile(path);
     }
 
     public String get(String path) {
-        String raw = messagesCfg.getString(path, path);
-        return prefix + " " + color(raw);
+        return template(path).text();
+    }
+
+    public Component component(String path) {
+        return template(path).component();
     }
 
     public String raw(String path) {
-        String raw = messagesCfg.getString(path, path);
-        return color(raw);
+        return rawTemplate(path).text();
+    }
+
+    public Component rawComponent(String path) {
+        return rawTemplate(path).component();
+    }
+
+    public String format(String path, String key, String value) {
+        return template(path).render(key, value);
     }
 
     public String format(String path, Map<String, String> placeholders) {
-        String msg = get(path);
-        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-            msg = msg.replace("{" + entry.getKey() + "}", entry.getValue());
-        }
-        return msg;
+        return template(path).render(placeholders);
     }
 
     public String formatRaw(String path, Map<String, String> placeholders) {
-        String msg = raw(path);
-        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-            msg = msg.replace("{" + entry.getKey() + "}", entry.getValue());
-        }
-        return msg;
+        return rawTemplate(path).render(placeholders);
     }
 
     public void saveDefaults() {
@@ -64,4 +102,16 @@ public class Messages {
     private String color(String message) {
         return ChatColor.translateAlternateColorCodes('&', message == null ? "" : message);
     }
+
+    private static final class Compiled {
+        private final String prefix;
+        private final Map<String, MessageTemplate> prefixed;
+        private final Map<String, MessageTemplate> raw;
+
+        private Compiled(String prefix, Map<String, MessageTemplate> prefixed, Map<String, MessageTemplate> raw) {
+            this.prefix = prefix;
+            this.prefixed = prefixed;
+            this.raw = raw;
+        }
+    }
 }
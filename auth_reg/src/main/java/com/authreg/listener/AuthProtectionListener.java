@@ -3,6 +3,7 @@ package com.authreg.listener;
 import com.authreg.config.AuthConfig;
 import com.authreg.config.Messages;
 import com.authreg.user.AuthManager;
+import com.authreg.user.PlayerSession;
 import org.bukkit.Location;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -16,38 +17,26 @@ import org.bukkit.event.player.*;
 import org.bukkit.entity.Player;
 import io.papermc.paper.event.player.AsyncChatEvent;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
 
 public class AuthProtectionListener implements Listener {
     private static final double MOVEMENT_EPSILON = 1.0E-3;
     private final AuthManager authManager;
     private final Messages messages;
     private final AuthConfig config;
-    private final Map<UUID, Long> warnCooldown = new HashMap<>();
+    private final WarnThrottle warnThrottle;
 
-    public AuthProtectionListener(AuthManager authManager, Messages messages, AuthConfig config) {
+    public AuthProtectionListener(AuthManager authManager, Messages messages, AuthConfig config, WarnThrottle warnThrottle) {
         this.authManager = authManager;
         this.messages = messages;
         this.config = config;
-    }
-
-    @EventHandler(priority = EventPriority.HIGHEST)
-    public void onJoin(PlayerJoinEvent event) {
-        authManager.handleJoin(event.getPlayer());
-    }
-
-    @EventHandler(priority = EventPriority.MONITOR)
-    public void onQuit(PlayerQuitEvent event) {
-        authManager.handleQuit(event.getPlayer());
+        this.warnThrottle = warnThrottle;
     }
 
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onMove(PlayerMoveEvent event) {
         if (!config.getProtectionSettings().isLockMovement()) return;
         Player player = event.getPlayer();
-        if (!authManager.isAuthenticated(player.getUniqueId())) {
+        if (isLocked(player)) {
             Location to = event.getTo();
             if (to == null) {
                 return;
@@ -63,9 +52,8 @@ public class AuthProtectionListener implements Listener {
     public void onCommand(PlayerCommandPreprocessEvent event) {
         if (!config.getProtectionSettings().isLockCommands()) return;
         Player player = event.getPlayer();
-        if (authManager.isAuthenticated(player.getUniqueId())) return;
-        String msg = event.getMessage().toLowerCase();
-        if (!authManager.isAllowedCommand(msg.startsWith("/") ? msg.substring(1) : msg)) {
+        if (!isLocked(player)) return;
+        if (!authManager.isAllowedCommand(event.getMessage())) {
             event.setCancelled(true);
             warn(player);
         }
@@ -75,8 +63,8 @@ public class AuthProtectionListener implements Listener {
     public void onDamage(EntityDamageEvent event) {
         if (!(event.getEntity() instanceof Player player)) return;
         if (!config.getProtectionSettings().isLockDamage()) return;
-        UUID uuid = player.getUniqueId();
-        if (!authManager.isAuthenticated(uuid) || authManager.hasPostLoginProtection(uuid)) {
+        PlayerSession session = authManager.getSession(player.getUniqueId());
+        if (session == null || !session.isAuthenticated() || session.isProtected(System.currentTimeMillis())) {
             event.setCancelled(true);
         }
     }
@@ -85,7 +73,7 @@ public class AuthProtectionListener implements Listener {
     public void onInteract(PlayerInteractEvent event) {
         if (!config.getProtectionSettings().isLockInteract()) return;
         Player player = event.getPlayer();
-        if (!authManager.isAuthenticated(player.getUniqueId())) {
+        if (isLocked(player)) {
             event.setCancelled(true);
             warn(player);
         }
@@ -95,7 +83,7 @@ public class AuthProtectionListener implements Listener {
     public void onInteractEntity(PlayerInteractEntityEvent event) {
         if (!config.getProtectionSettings().isLockInteract()) return;
         Player player = event.getPlayer();
-        if (!authManager.isAuthenticated(player.getUniqueId())) {
+        if (isLocked(player)) {
             event.setCancelled(true);
             warn(player);
         }
@@ -105,7 +93,7 @@ public class AuthProtectionListener implements Listener {
     public void onInventory(InventoryOpenEvent event) {
         if (!(event.getPlayer() instanceof Player player)) return;
         if (!config.getProtectionSettings().isLockInventory()) return;
-        if (!authManager.isAuthenticated(player.getUniqueId())) {
+        if (isLocked(player)) {
             event.setCancelled(true);
             warn(player);
         }
@@ -115,7 +103,7 @@ public class AuthProtectionListener implements Listener {
     public void onSwap(PlayerSwapHandItemsEvent event) {
         if (!config.getProtectionSettings().isLockItemSwitch()) return;
         Player player = event.getPlayer();
-        if (!authManager.isAuthenticated(player.getUniqueId())) {
+        if (isLocked(player)) {
             event.setCancelled(true);
             warn(player);
         }
@@ -125,7 +113,7 @@ public class AuthProtectionListener implements Listener {
     public void onHeld(PlayerItemHeldEvent event) {
         if (!config.getProtectionSettings().isLockItemSwitch()) return;
         Player player = event.getPlayer();
-        if (!authManager.isAuthenticated(player.getUniqueId())) {
+        if (isLocked(player)) {
             event.setCancelled(true);
             warn(player);
         }
@@ -134,7 +122,7 @@ public class AuthProtectionListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onChat(AsyncChatEvent event) {
         Player player = event.getPlayer();
-        if (!authManager.isAuthenticated(player.getUniqueId())) {
+        if (isLocked(player)) {
             event.setCancelled(true);
             warn(player);
         }
@@ -143,7 +131,7 @@ public class AuthProtectionListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onDrop(PlayerDropItemEvent event) {
         Player player = event.getPlayer();
-        if (!authManager.isAuthenticated(player.getUniqueId())) {
+        if (isLocked(player)) {
             event.setCancelled(true);
         }
     }
@@ -151,7 +139,7 @@ public class AuthProtectionListener implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onPickup(EntityPickupItemEvent event) {
         if (!(event.getEntity() instanceof Player player)) return;
-        if (!authManager.isAuthenticated(player.getUniqueId())) {
+        if (isLocked(player)) {
             event.setCancelled(true);
         }
     }
@@ -160,7 +148,7 @@ public class AuthProtectionListener implements Listener {
     public void onBreak(BlockBreakEvent event) {
         if (!config.getProtectionSettings().isLockInteract()) return;
         Player player = event.getPlayer();
-        if (!authManager.isAuthenticated(player.getUniqueId())) {
+        if (isLocked(player)) {
             event.setCancelled(true);
             warn(player);
         }
@@ -170,22 +158,24 @@ public class AuthProtectionListener implements Listener {
     public void onPlace(BlockPlaceEvent event) {
         if (!config.getProtectionSettings().isLockInteract()) return;
         Player player = event.getPlayer();
-        if (!authManager.isAuthenticated(player.getUniqueId())) {
+        if (isLocked(player)) {
             event.setCancelled(true);
             warn(player);
         }
     }
 
+    private boolean isLocked(Player player) {
+        PlayerSession session = authManager.getSession(player.getUniqueId());
+        return session == null || !session.isAuthenticated();
+    }
+
     private void warn(Player player) {
-        long now = System.currentTimeMillis();
-        long last = warnCooldown.getOrDefault(player.getUniqueId(), 0L);
-        if (now - last > 1500) {
-            player.sendMessage(messages.get("protections.blocked"));
-            warnCooldown.put(player.getUniqueId(), now);
+        if (warnThrottle.tryAcquire(player.getUniqueId(), config.getProtectionSettings().getWarnIntervalMillis())) {
+            player.sendMessage(messages.component("protections.blocked"));
         }
     }
 
-    private boolean shouldBlockMovement(Location from, Location to) {
+    static boolean shouldBlockMovement(Location from, Location to) {
         double deltaX = Math.abs(from.getX() - to.getX());
         double deltaZ = Math.abs(from.getZ() - to.getZ());
         double deltaY = to.getY() - from.getY();
@@ -198,7 +188,7 @@ public class AuthProtectionListener implements Listener {
         return horizontalChanged || movingUp;
     }
 
-    private Location lockToPrevious(Location from, Location to) {
+    static Location lockToPrevious(Location from, Location to) {
         Location locked = from.clone();
         locked.setYaw(to.getYaw());
         locked.setPitch(to.getPitch());
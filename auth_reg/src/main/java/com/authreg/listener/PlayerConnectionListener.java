@@ -0,0 +1,37 @@
+package com.authreg.listener;
+
+import com.authreg.user.AuthManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+public class PlayerConnectionListener implements Listener {
+    private final AuthManager authManager;
+    private final WarnThrottle warnThrottle;
+
+    public PlayerConnectionListener(AuthManager authManager, WarnThrottle warnThrottle) {
+        this.authManager = authManager;
+        this.warnThrottle = warnThrottle;
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            authManager.handlePreLogin(event);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onJoin(PlayerJoinEvent event) {
+        authManager.handleJoin(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        authManager.handleQuit(event.getPlayer());
+        warnThrottle.forget(event.getPlayer().getUniqueId());
+    }
+}
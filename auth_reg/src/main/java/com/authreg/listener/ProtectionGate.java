@@ -0,0 +1,70 @@
+package com.authreg.listener;
+
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ProtectionGate {
+    private final Plugin plugin;
+    private final Set<UUID> guarded = ConcurrentHashMap.newKeySet();
+    private Listener listener;
+    private boolean registered;
+
+    public ProtectionGate(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public synchronized void bind(Listener listener) {
+        if (registered && this.listener != null) {
+            HandlerList.unregisterAll(this.listener);
+            registered = false;
+        }
+        this.listener = listener;
+        update();
+    }
+
+    public void guard(UUID uuid) {
+        if (guarded.add(uuid)) {
+            update();
+        }
+    }
+
+    public void release(UUID uuid) {
+        if (guarded.remove(uuid)) {
+            update();
+        }
+    }
+
+    public int getGuardedCount() {
+        return guarded.size();
+    }
+
+    public synchronized boolean isActive() {
+        return registered;
+    }
+
+    public void clear() {
+        guarded.clear();
+        update();
+    }
+
+    private synchronized void update() {
+        if (listener == null) {
+            return;
+        }
+        boolean needed = !guarded.isEmpty();
+        if (needed == registered) {
+            return;
+        }
+        if (needed) {
+            plugin.getServer().getPluginManager().registerEvents(listener, plugin);
+        } else {
+            HandlerList.unregisterAll(listener);
+        }
+        registered = needed;
+    }
+}
@@ -0,0 +1,32 @@
+package com.authreg.listener;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class WarnThrottle {
+    private final Map<UUID, AtomicLong> lastWarned = new ConcurrentHashMap<>();
+
+    public boolean tryAcquire(UUID uuid, long intervalMillis) {
+        AtomicLong last = lastWarned.get(uuid);
+        if (last == null) {
+            last = lastWarned.computeIfAbsent(uuid, key -> new AtomicLong());
+        }
+        long now = System.currentTimeMillis();
+        long previous = last.get();
+        return now - previous >= intervalMillis && last.compareAndSet(previous, now);
+    }
+
+    public void forget(UUID uuid) {
+        lastWarned.remove(uuid);
+    }
+
+    public void clear() {
+        lastWarned.clear();
+    }
+
+    public int size() {
+        return lastWarned.size();
+    }
+}
@@ -1,49 +1,92 @@
 package com.authreg.logging;
 
+import com.authreg.command.CommandMatcher;
 import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.core.Filter;
 import org.apache.logging.log4j.core.LoggerContext;
 import org.apache.logging.log4j.core.config.Configuration;
 import org.apache.logging.log4j.core.filter.AbstractFilter;
 import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.message.Message;
 import org.bukkit.plugin.Plugin;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
-import java.util.Set;
+import java.util.Map;
 
 public class CommandLogFilter extends AbstractFilter {
-    private static final Set<String> SENSITIVE = Set.of("/login", "/l", "/register", "/reg");
+    private static final String MARKER = "issued server command: ";
+
+    private final CommandMatcher sensitive;
+
+    public CommandLogFilter(CommandMatcher sensitive) {
+        this.sensitive = sensitive;
+    }
 
     @Override
     public Result filter(LogEvent event) {
-        String msg = event.getMessage() == null ? null : event.getMessage().getFormattedMessage();
+        Message message = event.getMessage();
+        if (message == null) return Result.NEUTRAL;
+        String format = message.getFormat();
+        if (format != null && !format.contains(MARKER)) {
+            return Result.NEUTRAL;
+        }
+        Object[] params = message.getParameters();
+        if (format != null && format.endsWith("{}") && params != null && params.length > 0
+                && params[params.length - 1] instanceof CharSequence command) {
+            return sensitive.matches(command) ? Result.DENY : Result.NEUTRAL;
+        }
+        String msg = message.getFormattedMessage();
         if (msg == null) return Result.NEUTRAL;
         return shouldBlock(msg);
     }
 
-    private Result shouldBlock(String msg) {
-        String lower = msg.toLowerCase(Locale.ROOT);
-        if (!lower.contains("issued server command:")) {
+    Result shouldBlock(String msg) {
+        int index = msg.indexOf(MARKER);
+        if (index < 0) {
             return Result.NEUTRAL;
         }
-        for (String cmd : SENSITIVE) {
-            if (lower.contains("issued server command: " + cmd)) {
-                return Result.DENY;
-            }
-        }
-        return Result.NEUTRAL;
+        int start = index + MARKER.length();
+        return sensitive.matches(msg, start, msg.length()) ? Result.DENY : Result.NEUTRAL;
     }
 
     public static void register(Plugin plugin) {
         try {
             LoggerContext ctx = (LoggerContext) LogManager.getContext(false);
             Configuration config = ctx.getConfiguration();
-            CommandLogFilter filter = new CommandLogFilter();
+            CommandMatcher sensitive = CommandMatcher.of(sensitiveCommands(plugin));
+            CommandLogFilter filter = new CommandLogFilter(sensitive);
             config.addFilter(filter);
             ctx.updateLoggers();
-            plugin.getLogger().info("Sensitive command log filter enabled.");
+            plugin.getLogger().info("Sensitive command log filter enabled (" + sensitive.size() + " labels).");
         } catch (Throwable t) {
             plugin.getLogger().warning("Failed to register command log filter: " + t.getMessage());
         }
     }
+
+    private static List<String> sensitiveCommands(Plugin plugin) {
+        List<String> labels = new ArrayList<>();
+        Map<String, Map<String, Object>> commands = plugin.getDescription().getCommands();
+        if (commands == null) {
+            return labels;
+        }
+        String namespace = plugin.getName().toLowerCase(Locale.ROOT) + ":";
+        for (Map.Entry<String, Map<String, Object>> entry : commands.entrySet()) {
+            addLabel(labels, namespace, entry.getKey());
+            Object aliases = entry.getValue() == null ? null : entry.getValue().get("aliases");
+            if (aliases instanceof List<?> list) {
+                for (Object alias : list) {
+                    addLabel(labels, namespace, String.valueOf(alias));
+                }
+            } else if (aliases != null) {
+                addLabel(labels, namespace, aliases.toString());
+            }
+        }
+        return labels;
+    }
+
+    private static void addLabel(List<String> labels, String namespace, String label) {
+        labels.add(label);
+        labels.add(namespace + label);
+    }
 }
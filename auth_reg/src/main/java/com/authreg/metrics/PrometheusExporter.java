@@ -0,0 +1,65 @@
+package com.authreg.metrics;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+public class PrometheusExporter {
+    private final Plugin plugin;
+    private final Metrics metrics;
+    private ScheduledTask task;
+    private volatile boolean warned;
+
+    public PrometheusExporter(Plugin plugin, Metrics metrics) {
+        this.plugin = plugin;
+        this.metrics = metrics;
+    }
+
+    public synchronized void start(File file, int intervalSeconds) {
+        stop();
+        warned = false;
+        long period = Math.max(1, intervalSeconds);
+        task = plugin.getServer().getAsyncScheduler().runAtFixedRate(plugin, t -> export(file), period, period, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    public void export(File file) {
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+        try {
+            Path parent = target.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                metrics.writePrometheus(writer);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            warned = false;
+        } catch (IOException e) {
+            if (!warned) {
+                warned = true;
+                plugin.getLogger().warning("Metrics export to " + file + " failed: " + e.getMessage());
+            }
+        }
+    }
+}
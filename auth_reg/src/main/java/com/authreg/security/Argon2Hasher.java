@@ -0,0 +1,147 @@
+package com.authreg.security;
+
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
+import org.bouncycastle.crypto.params.Argon2Parameters;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+final class Argon2Hasher implements PasswordHasher {
+    static final int MAX_ITERATIONS = 10;
+    private static final String PREFIX = "$argon2id$v=19$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int memoryKb;
+    private final int iterations;
+    private final int parallelism;
+
+    Argon2Hasher(int memoryKb, int iterations, int parallelism) {
+        this.memoryKb = Math.max(8 * parallelism, memoryKb);
+        this.iterations = Math.max(1, Math.min(MAX_ITERATIONS, iterations));
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    int memoryKb() {
+        return memoryKb;
+    }
+
+    int iterations() {
+        return iterations;
+    }
+
+    int parallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public String algorithm() {
+        return "argon2id";
+    }
+
+    @Override
+    public String describe() {
+        return "argon2id m=" + memoryKb + "k t=" + iterations + " p=" + parallelism;
+    }
+
+    @Override
+    public boolean supports(String hash) {
+        return hash != null && hash.startsWith(PREFIX);
+    }
+
+    @Override
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] out = derive(password, salt, memoryKb, iterations, parallelism, HASH_BYTES);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + "m=" + memoryKb + ",t=" + iterations + ",p=" + parallelism
+                + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(out);
+    }
+
+    @Override
+    public boolean verify(String password, String hash) {
+        Encoded encoded = Encoded.parse(hash);
+        if (encoded == null) {
+            return false;
+        }
+        byte[] actual = derive(password, encoded.salt, encoded.memoryKb, encoded.iterations, encoded.parallelism, encoded.hash.length);
+        return MessageDigest.isEqual(actual, encoded.hash);
+    }
+
+    @Override
+    public boolean needsRehash(String hash) {
+        Encoded encoded = Encoded.parse(hash);
+        return encoded == null || encoded.memoryKb < memoryKb || encoded.iterations < iterations
+                || encoded.hash.length < HASH_BYTES;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int memoryKb, int iterations, int parallelism, int length) {
+        Argon2Parameters params = new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+                .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+                .withMemoryAsKB(memoryKb)
+                .withIterations(iterations)
+                .withParallelism(parallelism)
+                .withSalt(salt)
+                .build();
+        Argon2BytesGenerator generator = new Argon2BytesGenerator();
+        generator.init(params);
+        byte[] out = new byte[length];
+        generator.generateBytes(password.getBytes(StandardCharsets.UTF_8), out);
+        return out;
+    }
+
+    private static final class Encoded {
+        private final int memoryKb;
+        private final int iterations;
+        private final int parallelism;
+        private final byte[] salt;
+        private final byte[] hash;
+
+        private Encoded(int memoryKb, int iterations, int parallelism, byte[] salt, byte[] hash) {
+            this.memoryKb = memoryKb;
+            this.iterations = iterations;
+            this.parallelism = parallelism;
+            this.salt = salt;
+            this.hash = hash;
+        }
+
+        private static Encoded parse(String hash) {
+            if (hash == null || !hash.startsWith(PREFIX)) {
+                return null;
+            }
+            String[] parts = hash.substring(PREFIX.length()).split("\\$");
+            if (parts.length != 3) {
+                return null;
+            }
+            int memory = -1;
+            int time = -1;
+            int lanes = -1;
+            try {
+                for (String param : parts[0].split(",")) {
+                    int value = Integer.parseInt(param.substring(2));
+                    switch (param.substring(0, 2)) {
+                        case "m=" -> memory = value;
+                        case "t=" -> time = value;
+                        case "p=" -> lanes = value;
+                        default -> {
+                            return null;
+                        }
+                    }
+                }
+                Base64.Decoder decoder = Base64.getDecoder();
+                byte[] salt = decoder.decode(parts[1]);
+                byte[] digest = decoder.decode(parts[2]);
+                if (memory <= 0 || time <= 0 || lanes <= 0 || digest.length == 0) {
+                    return null;
+                }
+                return new Encoded(memory, time, lanes, salt, digest);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.authreg.security;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+final class BCryptHasher implements PasswordHasher {
+    static final int MIN_COST = 10;
+    static final int MAX_COST = 16;
+
+    private final int cost;
+
+    BCryptHasher(int cost) {
+        this.cost = Math.max(MIN_COST, Math.min(MAX_COST, cost));
+    }
+
+    int cost() {
+        return cost;
+    }
+
+    @Override
+    public String algorithm() {
+        return "bcrypt";
+    }
+
+    @Override
+    public String describe() {
+        return "bcrypt cost=" + cost;
+    }
+
+    @Override
+    public boolean supports(String hash) {
+        return hash != null && hash.length() == 60 && hash.startsWith("$2") && hash.charAt(3) == '$'
+                && (hash.charAt(2) == 'a' || hash.charAt(2) == 'b' || hash.charAt(2) == 'y');
+    }
+
+    @Override
+    public String hash(String password) {
+        return BCrypt.hashpw(password, BCrypt.gensalt(cost));
+    }
+
+    @Override
+    public boolean verify(String password, String hash) {
+        try {
+            return BCrypt.checkpw(password, hash.charAt(2) == 'a' ? hash : "$2a" + hash.substring(3));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean needsRehash(String hash) {
+        return costOf(hash) < cost;
+    }
+
+    static int costOf(String hash) {
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+}
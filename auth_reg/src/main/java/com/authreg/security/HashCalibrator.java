@@ -0,0 +1,49 @@
+package com.authreg.security;
+
+import java.util.Arrays;
+
+final class HashCalibrator {
+    private static final String SAMPLE = "calibration-Sample-1";
+    private static final int SAMPLES = 5;
+
+    private HashCalibrator() {
+    }
+
+    static BCryptHasher bcrypt(int minCost, long targetNanos) {
+        BCryptHasher chosen = new BCryptHasher(minCost);
+        measure(chosen);
+        for (int cost = chosen.cost() + 1; cost <= BCryptHasher.MAX_COST; cost++) {
+            BCryptHasher candidate = new BCryptHasher(cost);
+            if (measure(candidate) > targetNanos) {
+                break;
+            }
+            chosen = candidate;
+        }
+        return chosen;
+    }
+
+    static Argon2Hasher argon2(int memoryKb, int minIterations, int parallelism, long targetNanos) {
+        Argon2Hasher chosen = new Argon2Hasher(memoryKb, minIterations, parallelism);
+        measure(chosen);
+        for (int iterations = chosen.iterations() + 1; iterations <= Argon2Hasher.MAX_ITERATIONS; iterations++) {
+            Argon2Hasher candidate = new Argon2Hasher(memoryKb, iterations, parallelism);
+            if (measure(candidate) > targetNanos) {
+                break;
+            }
+            chosen = candidate;
+        }
+        return chosen;
+    }
+
+    static long measure(PasswordHasher hasher) {
+        String hash = hasher.hash(SAMPLE);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            hasher.verify(SAMPLE, hash);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
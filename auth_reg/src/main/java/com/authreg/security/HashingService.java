@@ -0,0 +1,221 @@
+package com.authreg.security;
+
+import com.authreg.config.AuthConfig;
+import com.authreg.metrics.LatencyHistogram;
+import com.authreg.metrics.Metrics;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+public class HashingService {
+    private static final PasswordHasher BCRYPT_VERIFIER = new BCryptHasher(BCryptHasher.MIN_COST);
+    private static final PasswordHasher ARGON2_VERIFIER = new Argon2Hasher(65536, 3, 1);
+
+    private final ThreadPoolExecutor executor;
+    private final Logger logger;
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile PasswordHasher primary = BCRYPT_VERIFIER;
+    private volatile boolean rehashEnabled;
+    private volatile boolean calibrating;
+    private final int queueCapacity;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LatencyHistogram queueWait;
+    private final LatencyHistogram hashTime;
+    private final LatencyHistogram verifyTime;
+
+    public HashingService(int workers, int queueCapacity, Logger logger, Metrics metrics) {
+        this.logger = logger;
+        this.queueWait = metrics.histogram("hash_queue_wait");
+        this.hashTime = metrics.histogram("hash_create");
+        this.verifyTime = metrics.histogram("hash_verify");
+        this.queueCapacity = Math.max(1, queueCapacity);
+        int threads = Math.max(1, workers);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "auth_reg-hash-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        metrics.gauge("hash_queue", () -> executor.getQueue().size());
+    }
+
+    public void configure(AuthConfig.HashingSettings settings) {
+        int current = generation.incrementAndGet();
+        boolean argon2 = "argon2id".equals(settings.getAlgorithm());
+        PasswordHasher previous = primary;
+        this.rehashEnabled = settings.isRehashOnLogin();
+        this.primary = argon2
+                ? new Argon2Hasher(settings.getArgon2MemoryKb(), settings.getArgon2Iterations(), settings.getArgon2Parallelism())
+                : new BCryptHasher(settings.getBcryptCost());
+        this.calibrating = settings.getTargetMillis() > 0;
+        if (!calibrating) {
+            logger.info("Password hashing: " + primary.describe() + ".");
+            return;
+        }
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(settings.getTargetMillis());
+        Thread calibration = new Thread(() -> {
+            PasswordHasher calibrated = argon2
+                    ? HashCalibrator.argon2(settings.getArgon2MemoryKb(), argon2Floor(settings, previous), settings.getArgon2Parallelism(), targetNanos)
+                    : HashCalibrator.bcrypt(bcryptFloor(settings, previous), targetNanos);
+            long nanos = HashCalibrator.measure(calibrated);
+            if (generation.get() == current) {
+                primary = calibrated;
+                calibrating = false;
+                logger.info(String.format(Locale.ROOT, "Password hashing calibrated to %s (%.1f ms per check, target %d ms).",
+                        calibrated.describe(), nanos / 1_000_000.0, settings.getTargetMillis()));
+            }
+        }, "auth_reg-hash-calibration");
+        calibration.setDaemon(true);
+        calibration.setPriority(Thread.MIN_PRIORITY);
+        calibration.start();
+    }
+
+    private static int bcryptFloor(AuthConfig.HashingSettings settings, PasswordHasher previous) {
+        return previous instanceof BCryptHasher bcrypt && previous != BCRYPT_VERIFIER
+                ? Math.max(settings.getBcryptCost(), bcrypt.cost())
+                : settings.getBcryptCost();
+    }
+
+    private static int argon2Floor(AuthConfig.HashingSettings settings, PasswordHasher previous) {
+        return previous instanceof Argon2Hasher argon2 && argon2.memoryKb() == settings.getArgon2MemoryKb()
+                && argon2.parallelism() == settings.getArgon2Parallelism()
+                ? Math.max(settings.getArgon2Iterations(), argon2.iterations())
+                : settings.getArgon2Iterations();
+    }
+
+    public CompletableFuture<String> hashAsync(String password) {
+        PasswordHasher hasher = primary;
+        return submit(hashTime, () -> hasher.hash(password));
+    }
+
+    public CompletableFuture<Boolean> verifyAsync(String password, String hash) {
+        PasswordHasher hasher = verifierFor(hash);
+        return submit(verifyTime, () -> hasher != null && hasher.verify(password, hash));
+    }
+
+    public boolean needsRehash(String hash) {
+        if (!rehashEnabled || calibrating || verifierFor(hash) == null) {
+            return false;
+        }
+        PasswordHasher hasher = primary;
+        return !hasher.supports(hash) || hasher.needsRehash(hash);
+    }
+
+    public boolean supports(String hash) {
+        return verifierFor(hash) != null;
+    }
+
+    public String getHasherDescription() {
+        return primary.describe();
+    }
+
+    public void resize(int workers) {
+        int threads = Math.max(1, workers);
+        if (threads == executor.getMaximumPoolSize()) {
+            return;
+        }
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+    }
+
+    public int getWorkers() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public int getActiveWorkers() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public double getAverageMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0.0 : totalNanos.sum() / (double) count / 1_000_000.0;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private PasswordHasher verifierFor(String hash) {
+        PasswordHasher hasher = primary;
+        if (hasher.supports(hash)) {
+            return hasher;
+        }
+        if (BCRYPT_VERIFIER.supports(hash)) {
+            return BCRYPT_VERIFIER;
+        }
+        return ARGON2_VERIFIER.supports(hash) ? ARGON2_VERIFIER : null;
+    }
+
+    private <T> CompletableFuture<T> submit(LatencyHistogram timing, Supplier<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queued = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                queueWait.recordSince(queued);
+                long start = System.nanoTime();
+                T result;
+                try {
+                    result = work.get();
+                } catch (Throwable t) {
+                    record(timing, System.nanoTime() - start);
+                    future.completeExceptionally(t);
+                    return;
+                }
+                record(timing, System.nanoTime() - start);
+                future.complete(result);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void record(LatencyHistogram timing, long nanos) {
+        timing.record(nanos);
+        completed.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+}
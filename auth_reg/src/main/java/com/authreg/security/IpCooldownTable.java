@@ -0,0 +1,287 @@
+package com.authreg.security;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.Arrays;
+
+public class IpCooldownTable {
+    private static final long IPV4_TAG = 0x4L << 60;
+    private static final int BUCKETS = 64;
+    private static final int MIN_CAPACITY = 64;
+
+    private int maxEntries;
+    private long[] highs;
+    private long[] lows;
+    private long[] stamps;
+    private String[] names;
+    private int mask;
+    private int size;
+    private long evicted;
+    private final long[][] bucketKeys = new long[BUCKETS][];
+    private final int[] bucketSizes = new int[BUCKETS];
+    private long bucketMillis = 1000L;
+    private long sweptUntil = -1L;
+
+    public IpCooldownTable(int maxEntries) {
+        setMaxEntries(maxEntries);
+        allocate(MIN_CAPACITY);
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketKeys[i] = new long[8];
+        }
+    }
+
+    public synchronized void setMaxEntries(int maxEntries) {
+        this.maxEntries = Math.max(MIN_CAPACITY, maxEntries);
+    }
+
+    public synchronized long remainingMillis(InetAddress address, String playerName, long cooldownMillis, long now) {
+        if (address == null || cooldownMillis <= 0L) {
+            return 0L;
+        }
+        byte[] b = address.getAddress();
+        int slot = find(high(address, b), low(address, b));
+        if (slot < 0 || names[slot].equalsIgnoreCase(playerName)) {
+            return 0L;
+        }
+        return Math.max(0L, stamps[slot] + cooldownMillis - now);
+    }
+
+    public synchronized void record(InetAddress address, String playerName, long cooldownMillis, long now) {
+        if (address == null || cooldownMillis <= 0L) {
+            return;
+        }
+        byte[] b = address.getAddress();
+        long high = high(address, b);
+        long low = low(address, b);
+        int slot = find(high, low);
+        if (slot < 0) {
+            if (size >= maxEntries) {
+                rebucket(cooldownMillis);
+                evictOldest(cooldownMillis, now);
+            }
+            if ((size + 1) * 4 > highs.length * 3) {
+                allocate(highs.length * 2);
+            }
+            slot = insertSlot(high, low);
+            size++;
+        }
+        stamps[slot] = now;
+        names[slot] = playerName;
+        rebucket(cooldownMillis);
+        addToBucket(high, low, now + cooldownMillis);
+    }
+
+    public synchronized int expire(long cooldownMillis, long now) {
+        rebucket(cooldownMillis);
+        long current = now / bucketMillis;
+        if (sweptUntil < 0L) {
+            sweptUntil = current - 1L;
+        }
+        int removed = 0;
+        for (long bucket = Math.max(sweptUntil + 1L, current - BUCKETS + 1L); bucket < current; bucket++) {
+            int index = (int) (bucket & (BUCKETS - 1));
+            long[] keys = bucketKeys[index];
+            int count = bucketSizes[index];
+            bucketSizes[index] = 0;
+            if (keys.length > 1024 && count < keys.length / 4) {
+                bucketKeys[index] = new long[keys.length / 4];
+            }
+            for (int i = 0; i < count; i += 2) {
+                int slot = find(keys[i], keys[i + 1]);
+                if (slot < 0) {
+                    continue;
+                }
+                long expiresAt = stamps[slot] + cooldownMillis;
+                if (expiresAt <= now) {
+                    delete(slot);
+                    removed++;
+                } else {
+                    addToBucket(keys[i], keys[i + 1], expiresAt);
+                }
+            }
+        }
+        sweptUntil = current - 1L;
+        return removed;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int capacity() {
+        return highs.length;
+    }
+
+    public synchronized int maxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized long evicted() {
+        return evicted;
+    }
+
+    public synchronized long memoryBytes() {
+        long table = (long) highs.length * (8L + 8L + 8L + 4L);
+        long buckets = 0L;
+        for (long[] keys : bucketKeys) {
+            buckets += 16L + keys.length * 8L;
+        }
+        return table + buckets;
+    }
+
+    public synchronized void clear() {
+        names = null;
+        allocate(MIN_CAPACITY);
+        Arrays.fill(bucketSizes, 0);
+        sweptUntil = -1L;
+    }
+
+    private void evictOldest(long cooldownMillis, long now) {
+        long first = sweptUntil >= 0L ? sweptUntil + 1L : now / bucketMillis - BUCKETS + 1L;
+        for (long bucket = first; bucket < first + BUCKETS; bucket++) {
+            int index = (int) (bucket & (BUCKETS - 1));
+            long[] keys = bucketKeys[index];
+            int count = bucketSizes[index];
+            int oldest = -1;
+            for (int i = 0; i < count; i += 2) {
+                int slot = find(keys[i], keys[i + 1]);
+                if (slot >= 0 && (oldest < 0 || stamps[slot] < stamps[oldest])) {
+                    oldest = slot;
+                }
+            }
+            if (oldest >= 0 && (stamps[oldest] + cooldownMillis) / bucketMillis <= bucket) {
+                delete(oldest);
+                evicted++;
+                return;
+            }
+        }
+        int oldest = -1;
+        for (int slot = 0; slot < names.length; slot++) {
+            if (names[slot] != null && (oldest < 0 || stamps[slot] < stamps[oldest])) {
+                oldest = slot;
+            }
+        }
+        if (oldest >= 0) {
+            delete(oldest);
+            evicted++;
+        }
+    }
+
+    private void rebucket(long cooldownMillis) {
+        long width = Math.max(1000L, (cooldownMillis + BUCKETS / 2 - 1) / (BUCKETS / 2));
+        if (width == bucketMillis) {
+            return;
+        }
+        bucketMillis = width;
+        Arrays.fill(bucketSizes, 0);
+        sweptUntil = -1L;
+        for (int slot = 0; slot < highs.length; slot++) {
+            if (names[slot] != null) {
+                addToBucket(highs[slot], lows[slot], stamps[slot] + cooldownMillis);
+            }
+        }
+    }
+
+    private void addToBucket(long high, long low, long expiresAt) {
+        int index = (int) ((expiresAt / bucketMillis) & (BUCKETS - 1));
+        long[] keys = bucketKeys[index];
+        int count = bucketSizes[index];
+        if (count + 2 > keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            bucketKeys[index] = keys;
+        }
+        keys[count] = high;
+        keys[count + 1] = low;
+        bucketSizes[index] = count + 2;
+    }
+
+    private int find(long high, long low) {
+        for (int slot = hash(high, low) & mask; names[slot] != null; slot = (slot + 1) & mask) {
+            if (highs[slot] == high && lows[slot] == low) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int insertSlot(long high, long low) {
+        int slot = hash(high, low) & mask;
+        while (names[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        highs[slot] = high;
+        lows[slot] = low;
+        return slot;
+    }
+
+    private void delete(int slot) {
+        names[slot] = null;
+        size--;
+        int hole = slot;
+        for (int next = (slot + 1) & mask; names[next] != null; next = (next + 1) & mask) {
+            int home = hash(highs[next], lows[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                highs[hole] = highs[next];
+                lows[hole] = lows[next];
+                stamps[hole] = stamps[next];
+                names[hole] = names[next];
+                names[next] = null;
+                hole = next;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        long[] oldStamps = stamps;
+        String[] oldNames = names;
+        highs = new long[capacity];
+        lows = new long[capacity];
+        stamps = new long[capacity];
+        names = new String[capacity];
+        mask = capacity - 1;
+        size = 0;
+        if (oldNames == null) {
+            return;
+        }
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null) {
+                int slot = insertSlot(oldHighs[i], oldLows[i]);
+                stamps[slot] = oldStamps[i];
+                names[slot] = oldNames[i];
+                size++;
+            }
+        }
+    }
+
+    private static long high(InetAddress address, byte[] b) {
+        if (address instanceof Inet4Address) {
+            return IPV4_TAG;
+        }
+        long value = 0L;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (b[i] & 0xFFL);
+        }
+        return value;
+    }
+
+    private static long low(InetAddress address, byte[] b) {
+        if (address instanceof Inet4Address) {
+            return ((b[0] & 0xFFL) << 24) | ((b[1] & 0xFFL) << 16) | ((b[2] & 0xFFL) << 8) | (b[3] & 0xFFL);
+        }
+        long value = 0L;
+        for (int i = 8; i < 16; i++) {
+            value = (value << 8) | (b[i] & 0xFFL);
+        }
+        return value;
+    }
+
+    private static int hash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L ^ low;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
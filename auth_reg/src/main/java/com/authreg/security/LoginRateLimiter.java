@@ -0,0 +1,254 @@
+package com.authreg.security;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoginRateLimiter {
+    private static final int SHARDS = 16;
+    private static final int MAX_PROBES = 8;
+    private static final long IPV4_TAG = 0x4L << 60;
+    private static final long IPV6_TAG = 0x6L << 60;
+    private static final long IPV6_PREFIX_TAG = 0x7L << 60;
+    private static final long CONNECT_IPV4_TAG = 0x8L << 60;
+    private static final long CONNECT_IPV6_TAG = 0xAL << 60;
+    private static final long CONNECT_IPV6_PREFIX_TAG = 0xBL << 60;
+    private static final long RESERVED = -1L;
+
+    private final long origin = System.nanoTime();
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private volatile Settings settings;
+
+    public LoginRateLimiter(boolean enabled, int perMinute, int burst, int prefixPerMinute, int prefixBurst,
+                            int connectionsPerMinute, int connectionBurst, int tableSize) {
+        configure(enabled, perMinute, burst, prefixPerMinute, prefixBurst, connectionsPerMinute, connectionBurst, tableSize);
+    }
+
+    public void configure(boolean enabled, int perMinute, int burst, int prefixPerMinute, int prefixBurst,
+                          int connectionsPerMinute, int connectionBurst, int tableSize) {
+        Settings current = settings;
+        int shardCapacity = shardCapacity(tableSize);
+        Shard[] shards = current != null && current.shards[0].capacity() == shardCapacity ? current.shards : newShards(shardCapacity);
+        this.settings = new Settings(enabled, Rate.of(perMinute, burst), Rate.of(prefixPerMinute, prefixBurst),
+                Rate.of(connectionsPerMinute, connectionBurst), shards);
+    }
+
+    public boolean tryAcquire(InetAddress address) {
+        Settings current = settings;
+        return tryAcquire(current, address, current.perAddress, IPV4_TAG, IPV6_TAG, IPV6_PREFIX_TAG);
+    }
+
+    public boolean tryAcquireConnection(InetAddress address) {
+        Settings current = settings;
+        return tryAcquire(current, address, current.perConnection, CONNECT_IPV4_TAG, CONNECT_IPV6_TAG, CONNECT_IPV6_PREFIX_TAG);
+    }
+
+    private boolean tryAcquire(Settings current, InetAddress address, Rate perAddress, long ipv4Tag, long ipv6Tag, long prefixTag) {
+        if (!current.enabled || address == null) {
+            return true;
+        }
+        long now = System.nanoTime() - origin + 1L;
+        boolean ok;
+        if (address instanceof Inet4Address) {
+            byte[] b = address.getAddress();
+            long ip = ((b[0] & 0xFFL) << 24) | ((b[1] & 0xFFL) << 16) | ((b[2] & 0xFFL) << 8) | (b[3] & 0xFFL);
+            ok = acquire(current, ipv4Tag | ip, perAddress, now);
+        } else if (address instanceof Inet6Address) {
+            byte[] b = address.getAddress();
+            long high = toLong(b, 0);
+            long low = toLong(b, 8);
+            ok = acquire(current, ipv6Tag | (mix(high ^ mix(low)) >>> 4), perAddress, now)
+                    && acquire(current, prefixTag | (mix(high) >>> 4), current.perPrefix, now);
+        } else {
+            ok = true;
+        }
+        if (ok) {
+            allowed.increment();
+        } else {
+            rejected.increment();
+        }
+        return ok;
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    public int getCapacity() {
+        Settings current = settings;
+        return current.shards.length * current.shards[0].capacity();
+    }
+
+    private boolean acquire(Settings current, long key, Rate rate, long now) {
+        if (rate.intervalNanos <= 0L) {
+            return true;
+        }
+        long hash = mix(key);
+        Shard shard = current.shards[(int) (hash >>> 60) & (SHARDS - 1)];
+        while (true) {
+            int slot = shard.slot(key, hash, now, evicted);
+            long tat = shard.tats.get(slot);
+            long base = Math.max(tat, now);
+            if (shard.keys.get(slot) != key) {
+                continue;
+            }
+            if (base - now > rate.toleranceNanos) {
+                return false;
+            }
+            long next = base + rate.intervalNanos;
+            if (!shard.tats.compareAndSet(slot, tat, next)) {
+                continue;
+            }
+            if (shard.keys.get(slot) == key) {
+                return true;
+            }
+            shard.tats.compareAndSet(slot, next, tat);
+        }
+    }
+
+    private static Shard[] newShards(int capacity) {
+        Shard[] shards = new Shard[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(capacity);
+        }
+        return shards;
+    }
+
+    private static int shardCapacity(int tableSize) {
+        int perShard = Math.max(64, tableSize / SHARDS);
+        int capacity = 64;
+        while (capacity < perShard && capacity < (1 << 20)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static long toLong(byte[] b, int offset) {
+        long value = 0L;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (b[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static final class Shard {
+        private final AtomicLongArray keys;
+        private final AtomicLongArray tats;
+        private final int mask;
+
+        private Shard(int capacity) {
+            this.keys = new AtomicLongArray(capacity);
+            this.tats = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+        }
+
+        private int capacity() {
+            return mask + 1;
+        }
+
+        private int slot(long key, long hash, long now, LongAdder evicted) {
+            while (true) {
+                int start = (int) hash & mask;
+                int stale = -1;
+                int oldest = -1;
+                long oldestTat = Long.MAX_VALUE;
+                for (int probe = 0; probe < MAX_PROBES; probe++) {
+                    int index = (start + probe) & mask;
+                    long current = keys.get(index);
+                    if (current == key) {
+                        return index;
+                    }
+                    if (current == 0L) {
+                        if (keys.compareAndSet(index, 0L, key)) {
+                            return index;
+                        }
+                        if (keys.get(index) == key) {
+                            return index;
+                        }
+                        continue;
+                    }
+                    if (current == RESERVED) {
+                        continue;
+                    }
+                    long tat = tats.get(index);
+                    if (stale < 0 && tat <= now) {
+                        stale = index;
+                    }
+                    if (tat < oldestTat) {
+                        oldestTat = tat;
+                        oldest = index;
+                    }
+                }
+                int victim = stale >= 0 ? stale : oldest;
+                if (victim < 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                long previous = keys.get(victim);
+                if (previous != RESERVED && previous != key && keys.compareAndSet(victim, previous, RESERVED)) {
+                    if (stale < 0) {
+                        evicted.increment();
+                    }
+                    tats.set(victim, 0L);
+                    keys.set(victim, key);
+                    return victim;
+                }
+            }
+        }
+    }
+
+    private static final class Rate {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+
+        private Rate(long intervalNanos, long toleranceNanos) {
+            this.intervalNanos = intervalNanos;
+            this.toleranceNanos = toleranceNanos;
+        }
+
+        private static Rate of(int perMinute, int burst) {
+            if (perMinute <= 0) {
+                return new Rate(0L, 0L);
+            }
+            long interval = TimeUnit.MINUTES.toNanos(1) / perMinute;
+            return new Rate(interval, interval * (Math.max(1, burst) - 1L));
+        }
+    }
+
+    private static final class Settings {
+        private final boolean enabled;
+        private final Rate perAddress;
+        private final Rate perPrefix;
+        private final Rate perConnection;
+        private final Shard[] shards;
+
+        private Settings(boolean enabled, Rate perAddress, Rate perPrefix, Rate perConnection, Shard[] shards) {
+            this.enabled = enabled;
+            this.perAddress = perAddress;
+            this.perPrefix = perPrefix;
+            this.perConnection = perConnection;
+            this.shards = shards;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.authreg.security;
+
+public interface PasswordHasher {
+    String algorithm();
+
+    String describe();
+
+    boolean supports(String hash);
+
+    String hash(String password);
+
+    boolean verify(String password, String hash);
+
+    boolean needsRehash(String hash);
+}
@@ -0,0 +1,78 @@
+package com.authreg.security;
+
+import com.authreg.storage.TrustedSession;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+public class SessionTokens {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int KEY_BYTES = 32;
+
+    private final SecretKeySpec key;
+
+    public SessionTokens(File keyFile, Logger logger) {
+        this.key = new SecretKeySpec(loadKey(keyFile, logger), ALGORITHM);
+    }
+
+    public TrustedSession issue(UUID uuid, String ip, long expiresAt) {
+        return new TrustedSession(uuid, ip, sign(uuid, ip, expiresAt), expiresAt);
+    }
+
+    public boolean verify(TrustedSession session, UUID uuid, String ip, long now) {
+        if (session == null || ip == null || session.getExpiresAt() <= now
+                || !uuid.equals(session.getUuid()) || !ip.equals(session.getIp())) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(uuid, ip, session.getExpiresAt()), session.getToken());
+    }
+
+    private byte[] sign(UUID uuid, String ip, long expiresAt) {
+        byte[] address = ip.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(24 + address.length);
+        payload.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).putLong(expiresAt).put(address);
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static byte[] loadKey(File keyFile, Logger logger) {
+        try {
+            if (keyFile.isFile()) {
+                byte[] existing = Files.readAllBytes(keyFile.toPath());
+                if (existing.length >= KEY_BYTES) {
+                    return existing;
+                }
+                logger.warning("Session key file is too short, generating a new one.");
+            }
+            byte[] generated = new byte[KEY_BYTES];
+            new SecureRandom().nextBytes(generated);
+            File parent = keyFile.getParentFile();
+            if (parent != null && !parent.exists()) {
+                //noinspection ResultOfMethodCallIgnored
+                parent.mkdirs();
+            }
+            Files.write(keyFile.toPath(), generated);
+            return generated;
+        } catch (IOException e) {
+            logger.warning("Could not persist session key, sessions will not survive restarts: " + e.getMessage());
+            byte[] ephemeral = new byte[KEY_BYTES];
+            new SecureRandom().nextBytes(ephemeral);
+            return ephemeral;
+        }
+    }
+}
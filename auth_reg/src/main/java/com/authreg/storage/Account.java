@@ -79,4 +79,20 @@ public class Account {
     public Float getLastPitch() {
         return lastPitch;
     }
+
+    public Account withPasswordHash(String passwordHash, long updatedAt) {
+        return new Account(uuid, name, passwordHash, lastIp, createdAt, updatedAt,
+                lastWorld, lastX, lastY, lastZ, lastYaw, lastPitch);
+    }
+
+    public Account withLastIp(String lastIp, long updatedAt) {
+        return new Account(uuid, name, passwordHash, lastIp, createdAt, updatedAt,
+                lastWorld, lastX, lastY, lastZ, lastYaw, lastPitch);
+    }
+
+    public Account withLastLocation(String lastWorld, Double lastX, Double lastY, Double lastZ,
+                                    Float lastYaw, Float lastPitch, long updatedAt) {
+        return new Account(uuid, name, passwordHash, lastIp, createdAt, updatedAt,
+                lastWorld, lastX, lastY, lastZ, lastYaw, lastPitch);
+    }
 }
@@ -0,0 +1,121 @@
+package com.authreg.storage;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+class AccountCache {
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private volatile int maxSize = 10_000;
+    private volatile long ttlMillis = 900_000L;
+    private volatile boolean cacheMisses = true;
+
+    void configure(int maxSize, long ttlMillis, boolean cacheMisses) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = Math.max(1L, ttlMillis);
+        this.cacheMisses = cacheMisses;
+    }
+
+    CompletableFuture<Optional<Account>> get(UUID uuid, Function<UUID, CompletableFuture<Optional<Account>>> loader) {
+        long now = System.currentTimeMillis();
+        Entry cached = entries.get(uuid);
+        if (cached != null && !cached.isExpired(now)) {
+            return cached.future;
+        }
+        Entry fresh = new Entry(new CompletableFuture<>(), now + ttlMillis);
+        Entry winner = entries.compute(uuid, (key, current) ->
+                current == null || current.isExpired(now) ? fresh : current);
+        if (winner != fresh) {
+            return winner.future;
+        }
+        CompletableFuture<Optional<Account>> load;
+        try {
+            load = loader.apply(uuid);
+        } catch (RuntimeException e) {
+            entries.remove(uuid, fresh);
+            fresh.future.completeExceptionally(e);
+            return fresh.future;
+        }
+        load.whenComplete((account, error) -> {
+            if (error != null) {
+                entries.remove(uuid, fresh);
+                fresh.future.completeExceptionally(error);
+            } else {
+                if (account.isEmpty() && !cacheMisses) {
+                    entries.remove(uuid, fresh);
+                }
+                fresh.future.complete(account);
+            }
+        });
+        evictIfNeeded(now);
+        return fresh.future;
+    }
+
+    void put(Account account) {
+        long now = System.currentTimeMillis();
+        entries.put(account.getUuid(), new Entry(CompletableFuture.completedFuture(Optional.of(account)), now + ttlMillis));
+        evictIfNeeded(now);
+    }
+
+    void update(UUID uuid, UnaryOperator<Account> change) {
+        entries.computeIfPresent(uuid, (key, current) -> {
+            if (!current.future.isDone() || current.future.isCompletedExceptionally()) {
+                return null;
+            }
+            Optional<Account> account = current.future.join();
+            if (account.isEmpty()) {
+                return current;
+            }
+            return new Entry(CompletableFuture.completedFuture(Optional.of(change.apply(account.get()))), current.expiresAt);
+        });
+    }
+
+    void invalidate(UUID uuid) {
+        entries.remove(uuid);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evictIfNeeded(long now) {
+        int limit = maxSize;
+        if (entries.size() <= limit) {
+            return;
+        }
+        entries.values().removeIf(e -> e.isExpired(now));
+        int excess = entries.size() - limit;
+        if (excess <= 0) {
+            return;
+        }
+        excess += limit / 10;
+        Iterator<Entry> it = entries.values().iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<Optional<Account>> future;
+        private final long expiresAt;
+
+        private Entry(CompletableFuture<Optional<Account>> future, long expiresAt) {
+            this.future = future;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -1,241 +1,518 @@
 package com.authreg.storage;
 
 import com.authreg.AuthRegPlugin;
+import com.authreg.config.AuthConfig;
+import com.authreg.metrics.LatencyHistogram;
+import com.authreg.metrics.Metrics;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 
 import java.io.File;
-import java.sql.*;
+import java.sql.SQLException;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class AccountStorage {
     private final AuthRegPlugin plugin;
-    private Connection connection;
-    private final ExecutorService dbExecutor;
+    private volatile StorageBackend backend;
+    private final ScheduledThreadPoolExecutor dbExecutor;
+    private final ThreadPoolExecutor readExecutor;
+    private final AccountCache cache = new AccountCache();
+    private final WriteBehindBuffer writeBehind = new WriteBehindBuffer();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private volatile ScheduledFuture<?> flushTask;
+    private volatile CompletableFuture<Void> ready = new CompletableFuture<>();
+    private volatile int maxBatch = 256;
+    private volatile int shutdownTimeoutSeconds = 10;
+    private volatile long requestTimeoutMillis = 8000L;
+    private final LatencyHistogram readWait;
+    private final LatencyHistogram writeWait;
+    private final LatencyHistogram findByUuidTime;
+    private final LatencyHistogram findByNameTime;
+    private final LatencyHistogram insertTime;
+    private final LatencyHistogram passwordTime;
+    private final LatencyHistogram flushTime;
+    private final LatencyHistogram sessionTime;
+    private final LatencyHistogram importTime;
 
-    public AccountStorage(AuthRegPlugin plugin) {
+    public AccountStorage(AuthRegPlugin plugin, Metrics metrics) {
         this.plugin = plugin;
-        this.dbExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        this.dbExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
             @Override
             public Thread newThread(Runnable r) {
-                Thread t = new Thread(r, "auth_reg-sqlite");
+                Thread t = new Thread(r, "auth_reg-db");
                 t.setDaemon(true);
                 return t;
             }
         });
+        this.dbExecutor.setRemoveOnCancelPolicy(true);
+        AtomicInteger readerThreads = new AtomicInteger();
+        this.readExecutor = new ThreadPoolExecutor(1, 1, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "auth_reg-db-reader-" + readerThreads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.readExecutor.allowCoreThreadTimeOut(true);
+        this.readWait = metrics.histogram("db_read_queue_wait");
+        this.writeWait = metrics.histogram("db_write_queue_wait");
+        this.findByUuidTime = metrics.histogram("db_find_uuid");
+        this.findByNameTime = metrics.histogram("db_find_name");
+        this.insertTime = metrics.histogram("db_insert_account");
+        this.passwordTime = metrics.histogram("db_update_password");
+        this.flushTime = metrics.histogram("db_flush");
+        this.sessionTime = metrics.histogram("db_session");
+        this.importTime = metrics.histogram("db_import_batch");
+        metrics.gauge("db_write_queue", () -> dbExecutor.getQueue().size());
+        metrics.gauge("db_read_queue", () -> readExecutor.getQueue().size());
+        metrics.gauge("db_pending_writes", writeBehind::size);
     }
 
-    public synchronized void init(String path) {
+    public CompletableFuture<Void> init(AuthConfig.DatabaseSettings settings) {
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        this.ready = gate;
+        boolean shared = !"sqlite".equals(settings.getType());
+        int ttlSeconds = shared ? Math.min(settings.getCacheTtlSeconds(), settings.getSharedCacheTtlSeconds()) : settings.getCacheTtlSeconds();
+        cache.configure(settings.getCacheMaxSize(), ttlSeconds * 1000L, !shared);
+        cache.clear();
+        this.maxBatch = settings.getWriteBehindMaxBatch();
+        this.shutdownTimeoutSeconds = settings.getShutdownTimeoutSeconds();
+        this.requestTimeoutMillis = settings.getRequestTimeoutMillis();
+        ScheduledFuture<?> previous = flushTask;
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        long interval = settings.getWriteBehindIntervalMillis();
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-            File dbFile = new File(path);
-            File parent = dbFile.getParentFile();
-            if (parent != null && !parent.exists()) {
-                //noinspection ResultOfMethodCallIgnored
-                parent.mkdirs();
-            }
-            String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
-            connection = DriverManager.getConnection(url);
-            try (Statement st = connection.createStatement()) {
-                st.executeUpdate("CREATE TABLE IF NOT EXISTS accounts (" +
-                        "uuid TEXT PRIMARY KEY," +
-                        "name TEXT UNIQUE COLLATE NOCASE," +
-                        "password_hash TEXT NOT NULL," +
-                        "last_ip TEXT," +
-                        "last_world TEXT," +
-                        "last_x REAL," +
-                        "last_y REAL," +
-                        "last_z REAL," +
-                        "last_yaw REAL," +
-                        "last_pitch REAL," +
-                        "created_at INTEGER," +
-                        "updated_at INTEGER" +
-                        ");");
-                addColumnIfMissing(st, "ALTER TABLE accounts ADD COLUMN last_world TEXT;");
-                addColumnIfMissing(st, "ALTER TABLE accounts ADD COLUMN last_x REAL;");
-                addColumnIfMissing(st, "ALTER TABLE accounts ADD COLUMN last_y REAL;");
-                addColumnIfMissing(st, "ALTER TABLE accounts ADD COLUMN last_z REAL;");
-                addColumnIfMissing(st, "ALTER TABLE accounts ADD COLUMN last_yaw REAL;");
-                addColumnIfMissing(st, "ALTER TABLE accounts ADD COLUMN last_pitch REAL;");
-            }
-        } catch (SQLException e) {
-            Bukkit.getLogger().severe("[auth_reg] Не удалось инициализировать SQLite: " + e.getMessage());
+            flushTask = dbExecutor.scheduleWithFixedDelay(this::flushPending, interval, interval, TimeUnit.MILLISECONDS);
+            dbExecutor.execute(() -> {
+                try {
+                    open(settings);
+                } finally {
+                    gate.complete(null);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            gate.complete(null);
+        }
+        return gate;
+    }
+
+    public CompletableFuture<Void> whenReady() {
+        return ready;
+    }
+
+    public boolean isReady() {
+        return ready.isDone();
+    }
+
+    private synchronized void open(AuthConfig.DatabaseSettings settings) {
+        long started = System.currentTimeMillis();
+        flushPending();
+        closeBackend();
+        StorageBackend next = createBackend(settings);
+        if (next == null) {
+            Bukkit.getLogger().severe("[auth_reg] Неизвестный тип базы данных: " + settings.getType());
+            return;
+        }
+        try {
+            int version = next.open();
+            backend = next;
+            resizeReaders(next.readerThreads());
+            plugin.getLogger().info("Storage ready (" + next.name() + ", schema v" + version + ") in "
+                    + (System.currentTimeMillis() - started) + " ms.");
+        } catch (SQLException | RuntimeException e) {
+            next.close();
+            Bukkit.getLogger().severe("[auth_reg] Не удалось подключиться к базе " + next.name() + ": " + e.getMessage());
         }
     }
 
+    private StorageBackend createBackend(AuthConfig.DatabaseSettings settings) {
+        if ("sqlite".equals(settings.getType())) {
+            return new SqliteBackend(new File(settings.getFile()), settings, plugin.getLogger());
+        }
+        SqlPoolBackend.Dialect dialect = SqlPoolBackend.dialect(settings.getType());
+        return dialect == null ? null : new SqlPoolBackend(dialect, settings, plugin.getLogger());
+    }
+
     public CompletableFuture<Optional<Account>> findByUUIDAsync(UUID uuid) {
-        return CompletableFuture.supplyAsync(() -> findByUUID(uuid), dbExecutor);
+        return cache.get(uuid, key -> {
+            long queued = System.nanoTime();
+            return ready.thenApplyAsync(v -> {
+                readWait.recordSince(queued);
+                return load(key);
+            }, readExecutor).orTimeout(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+        });
     }
 
-    public synchronized Optional<Account> findByUUID(UUID uuid) {
-        if (connection == null) return Optional.empty();
-        try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM accounts WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(map(rs));
-                }
-            }
-        } catch (SQLException e) {
-            plugin.getLogger().warning("findByUUID error: " + e.getMessage());
+    public Optional<Account> findByUUID(UUID uuid) {
+        try {
+            return load(uuid);
+        } catch (CompletionException e) {
+            return Optional.empty();
         }
-        return Optional.empty();
     }
 
     public CompletableFuture<Optional<Account>> findByNameAsync(String name) {
-        return CompletableFuture.supplyAsync(() -> findByName(name), dbExecutor);
+        long queued = System.nanoTime();
+        return ready.thenApplyAsync(v -> {
+            readWait.recordSince(queued);
+            return loadByName(name);
+        }, readExecutor).orTimeout(requestTimeoutMillis, TimeUnit.MILLISECONDS);
     }
 
-    public synchronized Optional<Account> findByName(String name) {
-        if (connection == null) return Optional.empty();
-        try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM accounts WHERE LOWER(name) = LOWER(?)")) {
-            ps.setString(1, name);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(map(rs));
-                }
-            }
+    public Optional<Account> findByName(String name) {
+        try {
+            return loadByName(name);
+        } catch (CompletionException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Optional<Account> load(UUID uuid) {
+        long start = System.nanoTime();
+        try {
+            return requireBackend().findByUUID(uuid).map(writeBehind::overlay);
+        } catch (SQLException e) {
+            plugin.getLogger().warning("findByUUID error: " + e.getMessage());
+            throw new CompletionException(e);
+        } finally {
+            findByUuidTime.recordSince(start);
+        }
+    }
+
+    private Optional<Account> loadByName(String name) {
+        long start = System.nanoTime();
+        try {
+            return requireBackend().findByName(name).map(writeBehind::overlay);
         } catch (SQLException e) {
             plugin.getLogger().warning("findByName error: " + e.getMessage());
+            throw new CompletionException(e);
+        } finally {
+            findByNameTime.recordSince(start);
         }
-        return Optional.empty();
     }
 
     public CompletableFuture<Void> createAccountAsync(UUID uuid, String name, String passwordHash, String ip, Location location) {
-        return CompletableFuture.runAsync(() -> createAccount(uuid, name, passwordHash, ip, location), dbExecutor);
-    }
-
-    public synchronized void createAccount(UUID uuid, String name, String passwordHash, String ip, Location location) {
-        if (connection == null) return;
-        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO accounts(uuid, name, password_hash, last_ip, last_world, last_x, last_y, last_z, last_yaw, last_pitch, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
-            long now = Instant.now().getEpochSecond();
-            ps.setString(1, uuid.toString());
-            ps.setString(2, name);
-            ps.setString(3, passwordHash);
-            ps.setString(4, ip);
-            if (location != null && location.getWorld() != null) {
-                ps.setString(5, location.getWorld().getName());
-                ps.setDouble(6, location.getX());
-                ps.setDouble(7, location.getY());
-                ps.setDouble(8, location.getZ());
-                ps.setFloat(9, location.getYaw());
-                ps.setFloat(10, location.getPitch());
-            } else {
-                ps.setNull(5, Types.VARCHAR);
-                ps.setNull(6, Types.REAL);
-                ps.setNull(7, Types.REAL);
-                ps.setNull(8, Types.REAL);
-                ps.setNull(9, Types.REAL);
-                ps.setNull(10, Types.REAL);
+        long now = Instant.now().getEpochSecond();
+        Account account = newAccount(uuid, name, passwordHash, ip, location, now);
+        cache.put(account);
+        long queued = System.nanoTime();
+        return CompletableFuture.runAsync(() -> {
+            writeWait.recordSince(queued);
+            if (!insertAccount(account)) {
+                throw new CompletionException(new SQLException("account " + uuid + " was not stored"));
             }
-            ps.setLong(11, now);
-            ps.setLong(12, now);
-            ps.executeUpdate();
+        }, dbExecutor).orTimeout(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void createAccount(UUID uuid, String name, String passwordHash, String ip, Location location) {
+        long now = Instant.now().getEpochSecond();
+        Account account = newAccount(uuid, name, passwordHash, ip, location, now);
+        cache.put(account);
+        insertAccount(account);
+    }
+
+    private boolean insertAccount(Account account) {
+        long start = System.nanoTime();
+        try {
+            requireBackend().insertAccount(account);
+            return true;
         } catch (SQLException e) {
+            cache.invalidate(account.getUuid());
             plugin.getLogger().warning("createAccount error: " + e.getMessage());
+            return false;
+        } finally {
+            insertTime.recordSince(start);
         }
     }
 
+    public CompletableFuture<Integer> importAccountsAsync(List<Account> accounts) {
+        long queued = System.nanoTime();
+        return ready.thenApplyAsync(v -> {
+            writeWait.recordSince(queued);
+            long start = System.nanoTime();
+            try {
+                int inserted = requireBackend().importAccounts(accounts);
+                for (Account account : accounts) {
+                    cache.invalidate(account.getUuid());
+                }
+                return inserted;
+            } catch (SQLException e) {
+                plugin.getLogger().warning("importAccounts error: " + e.getMessage());
+                throw new CompletionException(e);
+            } finally {
+                importTime.recordSince(start);
+            }
+        }, dbExecutor);
+    }
+
+    public long countAccounts() throws SQLException {
+        return requireBackend().countAccounts();
+    }
+
+    public void exportAccounts(Consumer<Account> sink) throws SQLException {
+        CompletableFuture.runAsync(this::flushPending, dbExecutor).join();
+        requireBackend().exportAccounts(sink);
+    }
+
     public CompletableFuture<Void> updatePasswordAsync(UUID uuid, String passwordHash) {
-        return CompletableFuture.runAsync(() -> updatePassword(uuid, passwordHash), dbExecutor);
+        long now = Instant.now().getEpochSecond();
+        cache.update(uuid, account -> account.withPasswordHash(passwordHash, now));
+        long queued = System.nanoTime();
+        return CompletableFuture.runAsync(() -> {
+            writeWait.recordSince(queued);
+            if (!writePassword(uuid, passwordHash, now)) {
+                throw new CompletionException(new SQLException("password of " + uuid + " was not stored"));
+            }
+        }, dbExecutor).orTimeout(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void updatePassword(UUID uuid, String passwordHash) {
+        long now = Instant.now().getEpochSecond();
+        cache.update(uuid, account -> account.withPasswordHash(passwordHash, now));
+        writePassword(uuid, passwordHash, now);
     }
 
-    public synchronized void updatePassword(UUID uuid, String passwordHash) {
-        if (connection == null) return;
-        try (PreparedStatement ps = connection.prepareStatement("UPDATE accounts SET password_hash = ?, updated_at = ? WHERE uuid = ?")) {
-            ps.setString(1, passwordHash);
-            ps.setLong(2, Instant.now().getEpochSecond());
-            ps.setString(3, uuid.toString());
-            ps.executeUpdate();
+    private boolean writePassword(UUID uuid, String passwordHash, long now) {
+        long start = System.nanoTime();
+        try {
+            requireBackend().updatePassword(uuid, passwordHash, now);
+            return true;
         } catch (SQLException e) {
+            cache.invalidate(uuid);
             plugin.getLogger().warning("updatePassword error: " + e.getMessage());
+            return false;
+        } finally {
+            passwordTime.recordSince(start);
         }
     }
 
+    public CompletableFuture<Boolean> rehashPasswordAsync(UUID uuid, String expectedHash, String passwordHash) {
+        long now = Instant.now().getEpochSecond();
+        long queued = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            writeWait.recordSince(queued);
+            long start = System.nanoTime();
+            try {
+                if (requireBackend().replacePasswordHash(uuid, expectedHash, passwordHash, now)) {
+                    cache.update(uuid, account -> expectedHash.equals(account.getPasswordHash())
+                            ? account.withPasswordHash(passwordHash, now) : account);
+                    return true;
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().warning("rehashPassword error: " + e.getMessage());
+            } finally {
+                passwordTime.recordSince(start);
+            }
+            cache.invalidate(uuid);
+            return false;
+        }, dbExecutor);
+    }
+
+    public CompletableFuture<Optional<TrustedSession>> findSessionAsync(UUID uuid) {
+        long queued = System.nanoTime();
+        return ready.thenApplyAsync(v -> {
+            readWait.recordSince(queued);
+            long start = System.nanoTime();
+            try {
+                return requireBackend().findSession(uuid);
+            } catch (SQLException e) {
+                plugin.getLogger().warning("findSession error: " + e.getMessage());
+                throw new CompletionException(e);
+            } finally {
+                sessionTime.recordSince(start);
+            }
+        }, readExecutor).orTimeout(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public CompletableFuture<Void> saveSessionAsync(TrustedSession session) {
+        long queued = System.nanoTime();
+        return CompletableFuture.runAsync(() -> {
+            writeWait.recordSince(queued);
+            long start = System.nanoTime();
+            try {
+                requireBackend().saveSession(session);
+            } catch (SQLException e) {
+                plugin.getLogger().warning("saveSession error: " + e.getMessage());
+            } finally {
+                sessionTime.recordSince(start);
+            }
+        }, dbExecutor);
+    }
+
+    public CompletableFuture<Void> deleteSessionAsync(UUID uuid) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                requireBackend().deleteSession(uuid);
+            } catch (SQLException e) {
+                plugin.getLogger().warning("deleteSession error: " + e.getMessage());
+            }
+        }, dbExecutor);
+    }
+
     public CompletableFuture<Void> updateLastIpAsync(UUID uuid, String ip) {
-        return CompletableFuture.runAsync(() -> updateLastIp(uuid, ip), dbExecutor);
+        long now = Instant.now().getEpochSecond();
+        cache.update(uuid, account -> account.withLastIp(ip, now));
+        writeBehind.ip(uuid, ip, now);
+        return scheduleFlushIfFull();
     }
 
-    public synchronized void updateLastIp(UUID uuid, String ip) {
-        if (connection == null) return;
-        try (PreparedStatement ps = connection.prepareStatement("UPDATE accounts SET last_ip = ?, updated_at = ? WHERE uuid = ?")) {
-            ps.setString(1, ip);
-            ps.setLong(2, Instant.now().getEpochSecond());
-            ps.setString(3, uuid.toString());
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            plugin.getLogger().warning("updateLastIp error: " + e.getMessage());
-        }
+    public void updateLastIp(UUID uuid, String ip) {
+        long now = Instant.now().getEpochSecond();
+        cache.update(uuid, account -> account.withLastIp(ip, now));
+        writeBehind.ip(uuid, ip, now);
+        flushPending();
     }
 
     public CompletableFuture<Void> updateLastLocationAsync(UUID uuid, Location location) {
-        return CompletableFuture.runAsync(() -> updateLastLocation(uuid, location), dbExecutor);
-    }
-
-    public synchronized void updateLastLocation(UUID uuid, Location location) {
-        if (connection == null) return;
-        try (PreparedStatement ps = connection.prepareStatement("UPDATE accounts SET last_world = ?, last_x = ?, last_y = ?, last_z = ?, last_yaw = ?, last_pitch = ?, updated_at = ? WHERE uuid = ?")) {
-            if (location != null && location.getWorld() != null) {
-                ps.setString(1, location.getWorld().getName());
-                ps.setDouble(2, location.getX());
-                ps.setDouble(3, location.getY());
-                ps.setDouble(4, location.getZ());
-                ps.setFloat(5, location.getYaw());
-                ps.setFloat(6, location.getPitch());
-            } else {
-                ps.setNull(1, Types.VARCHAR);
-                ps.setNull(2, Types.REAL);
-                ps.setNull(3, Types.REAL);
-                ps.setNull(4, Types.REAL);
-                ps.setNull(5, Types.REAL);
-                ps.setNull(6, Types.REAL);
-            }
-            ps.setLong(7, Instant.now().getEpochSecond());
-            ps.setString(8, uuid.toString());
-            ps.executeUpdate();
+        long now = Instant.now().getEpochSecond();
+        cacheLocation(uuid, location, now);
+        bufferLocation(uuid, location, now);
+        return scheduleFlushIfFull();
+    }
+
+    public void updateLastLocation(UUID uuid, Location location) {
+        long now = Instant.now().getEpochSecond();
+        cacheLocation(uuid, location, now);
+        bufferLocation(uuid, location, now);
+        flushPending();
+    }
+
+    public void saveLastLocations(Map<UUID, Location> locations) {
+        long now = Instant.now().getEpochSecond();
+        for (Map.Entry<UUID, Location> entry : locations.entrySet()) {
+            cacheLocation(entry.getKey(), entry.getValue(), now);
+            bufferLocation(entry.getKey(), entry.getValue(), now);
+        }
+        flushPending();
+    }
+
+    public synchronized void flushPending() {
+        StorageBackend current = backend;
+        if (current == null || writeBehind.size() == 0) return;
+        List<Map.Entry<UUID, WriteBehindBuffer.PendingWrite>> batch = writeBehind.drain();
+        if (batch.isEmpty()) return;
+        long start = System.nanoTime();
+        try {
+            current.applyWrites(batch);
         } catch (SQLException e) {
-            plugin.getLogger().warning("updateLastLocation error: " + e.getMessage());
+            writeBehind.restore(batch);
+            plugin.getLogger().warning("flushPending error (" + batch.size() + " rows kept for retry): " + e.getMessage());
+        } finally {
+            flushTime.recordSince(start);
         }
     }
 
-    public synchronized void close() {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException ignored) {
+    public int getPendingWrites() {
+        return writeBehind.size();
+    }
+
+    public void close() {
+        ScheduledFuture<?> flush = flushTask;
+        if (flush != null) {
+            flush.cancel(false);
+        }
+        try {
+            dbExecutor.execute(this::flushPending);
+        } catch (RejectedExecutionException ignored) {
+        }
+        dbExecutor.shutdown();
+        readExecutor.shutdownNow();
+        try {
+            if (!dbExecutor.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Storage did not drain within " + shutdownTimeoutSeconds
+                        + " s, " + writeBehind.size() + " pending writes dropped.");
+                dbExecutor.shutdownNow();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dbExecutor.shutdownNow();
+        }
+        synchronized (this) {
+            cache.clear();
+            closeBackend();
         }
-        dbExecutor.shutdownNow();
     }
 
-    private Account map(ResultSet rs) throws SQLException {
-        UUID uuid = UUID.fromString(rs.getString("uuid"));
-        String name = rs.getString("name");
-        String password = rs.getString("password_hash");
-        String ip = rs.getString("last_ip");
-        long created = rs.getLong("created_at");
-        long updated = rs.getLong("updated_at");
-        String world = rs.getString("last_world");
-        Double x = (Double) rs.getObject("last_x");
-        Double y = (Double) rs.getObject("last_y");
-        Double z = (Double) rs.getObject("last_z");
-        Float yaw = rs.getObject("last_yaw") == null ? null : rs.getFloat("last_yaw");
-        Float pitch = rs.getObject("last_pitch") == null ? null : rs.getFloat("last_pitch");
-        return new Account(uuid, name, password, ip, created, updated, world, x, y, z, yaw, pitch);
+    private CompletableFuture<Void> scheduleFlushIfFull() {
+        if (writeBehind.size() < maxBatch || !flushQueued.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+            flushQueued.set(false);
+            flushPending();
+        }, dbExecutor);
     }
 
-    private void addColumnIfMissing(Statement st, String sql) {
-        try {
-            st.executeUpdate(sql);
-        } catch (SQLException ignored) {
+    private void bufferLocation(UUID uuid, Location location, long now) {
+        if (location != null && location.getWorld() != null) {
+            writeBehind.location(uuid, location.getWorld().getName(), location.getX(), location.getY(), location.getZ(),
+                    location.getYaw(), location.getPitch(), now);
+        } else {
+            writeBehind.location(uuid, null, null, null, null, null, null, now);
+        }
+    }
+
+    private StorageBackend requireBackend() throws SQLException {
+        StorageBackend current = backend;
+        if (current == null) {
+            throw new SQLException("storage is not open");
+        }
+        return current;
+    }
+
+    private synchronized void closeBackend() {
+        StorageBackend current = backend;
+        backend = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void resizeReaders(int threads) {
+        if (threads > readExecutor.getMaximumPoolSize()) {
+            readExecutor.setMaximumPoolSize(threads);
+            readExecutor.setCorePoolSize(threads);
+        } else {
+            readExecutor.setCorePoolSize(threads);
+            readExecutor.setMaximumPoolSize(threads);
+        }
+    }
+
+    private void cacheLocation(UUID uuid, Location location, long now) {
+        if (location != null && location.getWorld() != null) {
+            String world = location.getWorld().getName();
+            double x = location.getX();
+            double y = location.getY();
+            double z = location.getZ();
+            float yaw = location.getYaw();
+            float pitch = location.getPitch();
+            cache.update(uuid, account -> account.withLastLocation(world, x, y, z, yaw, pitch, now));
+        } else {
+            cache.update(uuid, account -> account.withLastLocation(null, null, null, null, null, null, now));
+        }
+    }
+
+    private Account newAccount(UUID uuid, String name, String passwordHash, String ip, Location location, long now) {
+        if (location != null && location.getWorld() != null) {
+            return new Account(uuid, name, passwordHash, ip, now, now, location.getWorld().getName(),
+                    location.getX(), location.getY(), location.getZ(), location.getYaw(), location.getPitch());
         }
+        return new Account(uuid, name, passwordHash, ip, now, now, null, null, null, null, null, null);
     }
 }
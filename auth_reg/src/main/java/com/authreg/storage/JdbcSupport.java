@@ -0,0 +1,62 @@
+package com.authreg.storage;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.UUID;
+
+final class JdbcSupport {
+    private JdbcSupport() {
+    }
+
+    static Account map(ResultSet rs) throws SQLException {
+        UUID uuid = Uuids.fromBytes(rs.getBytes("uuid"));
+        String name = rs.getString("name");
+        String password = rs.getString("password_hash");
+        String ip = rs.getString("last_ip");
+        long created = rs.getLong("created_at");
+        long updated = rs.getLong("updated_at");
+        String world = rs.getString("last_world");
+        Double x = nullableDouble(rs, "last_x");
+        Double y = nullableDouble(rs, "last_y");
+        Double z = nullableDouble(rs, "last_z");
+        Float yaw = rs.getObject("last_yaw") == null ? null : rs.getFloat("last_yaw");
+        Float pitch = rs.getObject("last_pitch") == null ? null : rs.getFloat("last_pitch");
+        return new Account(uuid, name, password, ip, created, updated, world, x, y, z, yaw, pitch);
+    }
+
+    static int countInserted(int[] results) {
+        int inserted = 0;
+        for (int result : results) {
+            if (result > 0) {
+                inserted += result;
+            } else if (result == Statement.SUCCESS_NO_INFO) {
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+
+    static void setNullableDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+
+    static void setNullableFloat(PreparedStatement ps, int index, Float value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.REAL);
+        } else {
+            ps.setFloat(index, value);
+        }
+    }
+
+    private static Double nullableDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+}
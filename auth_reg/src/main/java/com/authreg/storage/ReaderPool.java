@@ -0,0 +1,56 @@
+package com.authreg.storage;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class ReaderPool {
+    private final BlockingQueue<StatementCache> idle;
+    private final long borrowTimeoutMillis;
+    private volatile boolean closed;
+
+    ReaderPool(List<StatementCache> connections, long borrowTimeoutMillis) {
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, connections.size()), false, connections);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    StatementCache borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("reader pool is closed");
+        }
+        try {
+            StatementCache connection = idle.poll(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (connection == null) {
+                throw new SQLException("no reader connection available within " + borrowTimeoutMillis + " ms");
+            }
+            return connection;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for a reader connection", e);
+        }
+    }
+
+    void release(StatementCache connection) {
+        if (closed || !idle.offer(connection)) {
+            closeQuietly(connection);
+            return;
+        }
+        if (closed && idle.remove(connection)) {
+            closeQuietly(connection);
+        }
+    }
+
+    void close() {
+        closed = true;
+        StatementCache connection;
+        while ((connection = idle.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private static void closeQuietly(StatementCache connection) {
+        connection.close();
+    }
+}
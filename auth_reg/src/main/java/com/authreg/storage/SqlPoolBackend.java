@@ -0,0 +1,516 @@
+package com.authreg.storage;
+
+import com.authreg.config.AuthConfig;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+class SqlPoolBackend implements StorageBackend {
+    private static final int LATEST_VERSION = 2;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private final Dialect dialect;
+    private final AuthConfig.DatabaseSettings settings;
+    private final Logger logger;
+    private final String driverClass;
+    private final String jdbcUrl;
+    private final String accounts;
+    private final String worlds;
+    private final String sessions;
+    private final String schemaVersion;
+    private final Map<String, Integer> worldIds = new ConcurrentHashMap<>();
+    private volatile HikariDataSource dataSource;
+
+    SqlPoolBackend(Dialect dialect, AuthConfig.DatabaseSettings settings, Logger logger) {
+        this(dialect, settings, logger, dialect.driverClass, dialect.url(settings.getHost(), settings.getPort(), settings.getDatabase()));
+    }
+
+    SqlPoolBackend(Dialect dialect, AuthConfig.DatabaseSettings settings, Logger logger, String driverClass, String jdbcUrl) {
+        this.dialect = dialect;
+        this.settings = settings;
+        this.logger = logger;
+        this.driverClass = driverClass;
+        this.jdbcUrl = jdbcUrl;
+        String prefix = settings.getTablePrefix();
+        this.accounts = prefix + "accounts";
+        this.worlds = prefix + "worlds";
+        this.sessions = prefix + "sessions";
+        this.schemaVersion = prefix + "schema_version";
+    }
+
+    static Dialect dialect(String type) {
+        switch (type.toLowerCase(Locale.ROOT)) {
+            case "mysql":
+            case "mariadb":
+                return Dialect.MARIADB;
+            case "postgres":
+            case "postgresql":
+                return Dialect.POSTGRESQL;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String name() {
+        return dialect.displayName;
+    }
+
+    @Override
+    public synchronized int open() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("auth_reg-" + dialect.name().toLowerCase(Locale.ROOT));
+        config.setDriverClassName(driverClass);
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(settings.getUsername());
+        config.setPassword(settings.getPassword());
+        config.setMaximumPoolSize(settings.getPoolSize());
+        config.setMinimumIdle(Math.min(2, settings.getPoolSize()));
+        config.setConnectionTimeout(settings.getConnectionTimeoutMillis());
+        config.setValidationTimeout(Math.min(settings.getConnectionTimeoutMillis(), 5000L));
+        try {
+            dataSource = new HikariDataSource(config);
+        } catch (RuntimeException e) {
+            throw new SQLException("could not open " + dialect.displayName + " pool: " + e.getMessage(), e);
+        }
+        return migrate();
+    }
+
+    @Override
+    public int readerThreads() {
+        return settings.getPoolSize();
+    }
+
+    @Override
+    public Optional<Account> findByUUID(UUID uuid) throws SQLException {
+        return findOne("a.uuid = ?", Uuids.toBytes(uuid));
+    }
+
+    @Override
+    public Optional<Account> findByName(String name) throws SQLException {
+        return findOne(dialect.nameEquals, name);
+    }
+
+    @Override
+    public void insertAccount(Account account) throws SQLException {
+        try (Connection connection = connection()) {
+            Integer worldId = worldId(connection, account.getLastWorld());
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + accounts + "(uuid, name, password_hash, last_ip, last_world, " +
+                    "last_x, last_y, last_z, last_yaw, last_pitch, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                ps.setQueryTimeout(settings.getQueryTimeoutSeconds());
+                ps.setBytes(1, Uuids.toBytes(account.getUuid()));
+                ps.setString(2, account.getName());
+                ps.setString(3, account.getPasswordHash());
+                ps.setString(4, account.getLastIp());
+                setWorldId(ps, 5, worldId);
+                JdbcSupport.setNullableDouble(ps, 6, account.getLastX());
+                JdbcSupport.setNullableDouble(ps, 7, account.getLastY());
+                JdbcSupport.setNullableDouble(ps, 8, account.getLastZ());
+                JdbcSupport.setNullableFloat(ps, 9, account.getLastYaw());
+                JdbcSupport.setNullableFloat(ps, 10, account.getLastPitch());
+                ps.setLong(11, account.getCreatedAt());
+                ps.setLong(12, account.getUpdatedAt());
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    @Override
+    public void updatePassword(UUID uuid, String passwordHash, long now) throws SQLException {
+        try (Connection connection = connection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement("UPDATE " + accounts + " SET password_hash = ?, updated_at = ? WHERE uuid = ?");
+                 PreparedStatement delete = connection.prepareStatement("DELETE FROM " + sessions + " WHERE uuid = ?")) {
+                byte[] key = Uuids.toBytes(uuid);
+                ps.setQueryTimeout(settings.getQueryTimeoutSeconds());
+                ps.setString(1, passwordHash);
+                ps.setLong(2, now);
+                ps.setBytes(3, key);
+                ps.executeUpdate();
+                delete.setQueryTimeout(settings.getQueryTimeoutSeconds());
+                delete.setBytes(1, key);
+                delete.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    public boolean replacePasswordHash(UUID uuid, String expectedHash, String passwordHash, long now) throws SQLException {
+        try (Connection connection = connection();
+             PreparedStatement ps = connection.prepareStatement("UPDATE " + accounts + " SET password_hash = ?, updated_at = ? " +
+                     "WHERE uuid = ? AND password_hash = ?")) {
+            ps.setQueryTimeout(settings.getQueryTimeoutSeconds());
+            ps.setString(1, passwordHash);
+            ps.setLong(2, now);
+            ps.setBytes(3, Uuids.toBytes(uuid));
+            ps.setString(4, expectedHash);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    @Override
+    public Optional<TrustedSession> findSession(UUID uuid) throws SQLException {
+        try (Connection connection = connection();
+             PreparedStatement ps = connection.prepareStatement("SELECT ip, token, expires_at FROM " + sessions + " WHERE uuid = ?")) {
+            ps.setQueryTimeout(settings.getQueryTimeoutSeconds());
+            ps.setBytes(1, Uuids.toBytes(uuid));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next()
+                        ? Optional.of(new TrustedSession(uuid, rs.getString(1), rs.getBytes(2), rs.getLong(3)))
+                        : Optional.empty();
+            }
+        }
+    }
+
+    @Override
+    public void saveSession(TrustedSession session) throws SQLException {
+        try (Connection connection = connection();
+             PreparedStatement ps = connection.prepareStatement(dialect.upsertSession.replace("{sessions}", sessions))) {
+            ps.setQueryTimeout(settings.getQueryTimeoutSeconds());
+            ps.setBytes(1, Uuids.toBytes(session.getUuid()));
+            ps.setString(2, session.getIp());
+            ps.setBytes(3, session.getToken());
+            ps.setLong(4, session.getExpiresAt());
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public void deleteSession(UUID uuid) throws SQLException {
+        try (Connection connection = connection();
+             PreparedStatement ps = connection.prepareStatement("DELETE FROM " + sessions + " WHERE uuid = ?")) {
+            ps.setQueryTimeout(settings.getQueryTimeoutSeconds());
+            ps.setBytes(1, Uuids.toBytes(uuid));
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public void applyWrites(List<Map.Entry<UUID, WriteBehindBuffer.PendingWrite>> batch) throws SQLException {
+        try (Connection connection = connection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement location = connection.prepareStatement("UPDATE " + accounts + " SET last_world = ?, last_x = ?, last_y = ?, " +
+                    "last_z = ?, last_yaw = ?, last_pitch = ?, updated_at = ? WHERE uuid = ?");
+                 PreparedStatement ip = connection.prepareStatement("UPDATE " + accounts + " SET last_ip = ?, updated_at = ? WHERE uuid = ?")) {
+                location.setQueryTimeout(settings.getQueryTimeoutSeconds());
+                ip.setQueryTimeout(settings.getQueryTimeoutSeconds());
+                boolean hasLocations = false;
+                boolean hasIps = false;
+                for (Map.Entry<UUID, WriteBehindBuffer.PendingWrite> entry : batch) {
+                    WriteBehindBuffer.PendingWrite write = entry.getValue();
+                    byte[] uuid = Uuids.toBytes(entry.getKey());
+                    if (write.hasLocation) {
+                        setWorldId(location, 1, worldId(connection, write.world));
+                        JdbcSupport.setNullableDouble(location, 2, write.x);
+                        JdbcSupport.setNullableDouble(location, 3, write.y);
+                        JdbcSupport.setNullableDouble(location, 4, write.z);
+                        JdbcSupport.setNullableFloat(location, 5, write.yaw);
+                        JdbcSupport.setNullableFloat(location, 6, write.pitch);
+                        location.setLong(7, write.updatedAt);
+                        location.setBytes(8, uuid);
+                        location.addBatch();
+                        hasLocations = true;
+                    }
+                    if (write.hasIp) {
+                        ip.setString(1, write.ip);
+                        ip.setLong(2, write.updatedAt);
+                        ip.setBytes(3, uuid);
+                        ip.addBatch();
+                        hasIps = true;
+                    }
+                }
+                if (hasLocations) {
+                    location.executeBatch();
+                }
+                if (hasIps) {
+                    ip.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                worldIds.clear();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    public int importAccounts(List<Account> batch) throws SQLException {
+        try (Connection connection = connection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(dialect.importAccount.replace("{accounts}", accounts))) {
+                ps.setQueryTimeout(settings.getQueryTimeoutSeconds());
+                for (Account account : batch) {
+                    ps.setBytes(1, Uuids.toBytes(account.getUuid()));
+                    ps.setString(2, account.getName());
+                    ps.setString(3, account.getPasswordHash());
+                    ps.setString(4, account.getLastIp());
+                    setWorldId(ps, 5, worldId(connection, account.getLastWorld()));
+                    JdbcSupport.setNullableDouble(ps, 6, account.getLastX());
+                    JdbcSupport.setNullableDouble(ps, 7, account.getLastY());
+                    JdbcSupport.setNullableDouble(ps, 8, account.getLastZ());
+                    JdbcSupport.setNullableFloat(ps, 9, account.getLastYaw());
+                    JdbcSupport.setNullableFloat(ps, 10, account.getLastPitch());
+                    ps.setLong(11, account.getCreatedAt());
+                    ps.setLong(12, account.getUpdatedAt());
+                    ps.addBatch();
+                }
+                int inserted = JdbcSupport.countInserted(ps.executeBatch());
+                connection.commit();
+                return inserted;
+            } catch (SQLException e) {
+                connection.rollback();
+                worldIds.clear();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    public long countAccounts() throws SQLException {
+        try (Connection connection = connection();
+             PreparedStatement ps = connection.prepareStatement("SELECT COUNT(*) FROM " + accounts)) {
+            ps.setQueryTimeout(settings.getQueryTimeoutSeconds());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        }
+    }
+
+    @Override
+    public void exportAccounts(Consumer<Account> sink) throws SQLException {
+        try (Connection connection = connection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement("SELECT a.uuid, a.name, a.password_hash, a.last_ip, w.name AS last_world, " +
+                    "a.last_x, a.last_y, a.last_z, a.last_yaw, a.last_pitch, a.created_at, a.updated_at " +
+                    "FROM " + accounts + " a LEFT JOIN " + worlds + " w ON w.id = a.last_world")) {
+                ps.setFetchSize(EXPORT_FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        sink.accept(JdbcSupport.map(rs));
+                    }
+                }
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        HikariDataSource pool = dataSource;
+        dataSource = null;
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private Optional<Account> findOne(String where, Object key) throws SQLException {
+        try (Connection connection = connection();
+             PreparedStatement ps = connection.prepareStatement("SELECT a.uuid, a.name, a.password_hash, a.last_ip, w.name AS last_world, " +
+                     "a.last_x, a.last_y, a.last_z, a.last_yaw, a.last_pitch, a.created_at, a.updated_at " +
+                     "FROM " + accounts + " a LEFT JOIN " + worlds + " w ON w.id = a.last_world WHERE " + where)) {
+            ps.setQueryTimeout(settings.getQueryTimeoutSeconds());
+            ps.setObject(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(JdbcSupport.map(rs)) : Optional.empty();
+            }
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        HikariDataSource pool = dataSource;
+        if (pool == null) {
+            throw new SQLException(dialect.displayName + " storage is not open");
+        }
+        return pool.getConnection();
+    }
+
+    private Integer worldId(Connection connection, String world) throws SQLException {
+        if (world == null) {
+            return null;
+        }
+        Integer id = worldIds.get(world);
+        if (id != null) {
+            return id;
+        }
+        try (PreparedStatement insert = connection.prepareStatement(dialect.insertWorld.replace("{worlds}", worlds))) {
+            insert.setString(1, world);
+            insert.executeUpdate();
+        }
+        try (PreparedStatement find = connection.prepareStatement("SELECT id FROM " + worlds + " WHERE name = ?")) {
+            find.setString(1, world);
+            try (ResultSet rs = find.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("world '" + world + "' was not interned");
+                }
+                id = rs.getInt(1);
+            }
+        }
+        worldIds.put(world, id);
+        return id;
+    }
+
+    private static void setWorldId(PreparedStatement ps, int index, Integer id) throws SQLException {
+        if (id == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, id);
+        }
+    }
+
+    private int migrate() throws SQLException {
+        try (Connection connection = connection(); Statement st = connection.createStatement()) {
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS " + schemaVersion + " (version INT NOT NULL)");
+            int version = 0;
+            try (ResultSet rs = st.executeQuery("SELECT MAX(version) FROM " + schemaVersion)) {
+                if (rs.next()) {
+                    version = rs.getInt(1);
+                }
+            }
+            if (version > LATEST_VERSION) {
+                throw new SQLException("database schema v" + version + " is newer than this plugin supports (v" + LATEST_VERSION + ")");
+            }
+            if (version < 1) {
+                for (String ddl : dialect.initialSchema) {
+                    st.executeUpdate(ddl.replace("{accounts}", accounts).replace("{worlds}", worlds));
+                }
+                st.executeUpdate("INSERT INTO " + schemaVersion + "(version) VALUES (1)");
+                version = 1;
+                logger.info(dialect.displayName + " schema created (v" + version + ").");
+            }
+            if (version < 2) {
+                st.executeUpdate(dialect.sessionSchema.replace("{sessions}", sessions));
+                st.executeUpdate("INSERT INTO " + schemaVersion + "(version) VALUES (2)");
+                version = 2;
+                logger.info(dialect.displayName + " schema migrated to v" + version + " (trusted sessions).");
+            }
+            try (PreparedStatement prune = connection.prepareStatement("DELETE FROM " + sessions + " WHERE expires_at < ?")) {
+                prune.setLong(1, System.currentTimeMillis());
+                prune.executeUpdate();
+            }
+            return version;
+        }
+    }
+
+    enum Dialect {
+        MARIADB("MariaDB", "org.mariadb.jdbc.Driver", "jdbc:mariadb://%s:%d/%s", "a.name = ?",
+                "INSERT IGNORE INTO {worlds}(name) VALUES (?)",
+                "INSERT IGNORE INTO {accounts}(uuid, name, password_hash, last_ip, last_world, " +
+                        "last_x, last_y, last_z, last_yaw, last_pitch, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                "INSERT INTO {sessions}(uuid, ip, token, expires_at) VALUES (?, ?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE ip = VALUES(ip), token = VALUES(token), expires_at = VALUES(expires_at)",
+                "CREATE TABLE IF NOT EXISTS {sessions} (" +
+                        "uuid BINARY(16) NOT NULL PRIMARY KEY," +
+                        "ip VARCHAR(45) NOT NULL," +
+                        "token VARBINARY(64) NOT NULL," +
+                        "expires_at BIGINT NOT NULL" +
+                        ") DEFAULT CHARSET=utf8mb4",
+                List.of(
+                        "CREATE TABLE IF NOT EXISTS {worlds} (" +
+                                "id INT AUTO_INCREMENT PRIMARY KEY," +
+                                "name VARCHAR(255) NOT NULL UNIQUE" +
+                                ") DEFAULT CHARSET=utf8mb4",
+                        "CREATE TABLE IF NOT EXISTS {accounts} (" +
+                                "uuid BINARY(16) NOT NULL PRIMARY KEY," +
+                                "name VARCHAR(32) COLLATE utf8mb4_unicode_ci UNIQUE," +
+                                "password_hash VARCHAR(255) NOT NULL," +
+                                "last_ip VARCHAR(45)," +
+                                "last_world INT," +
+                                "last_x DOUBLE," +
+                                "last_y DOUBLE," +
+                                "last_z DOUBLE," +
+                                "last_yaw FLOAT," +
+                                "last_pitch FLOAT," +
+                                "created_at BIGINT," +
+                                "updated_at BIGINT" +
+                                ") DEFAULT CHARSET=utf8mb4"
+                )),
+        POSTGRESQL("PostgreSQL", "org.postgresql.Driver", "jdbc:postgresql://%s:%d/%s", "lower(a.name) = lower(?)",
+                "INSERT INTO {worlds}(name) VALUES (?) ON CONFLICT DO NOTHING",
+                "INSERT INTO {accounts}(uuid, name, password_hash, last_ip, last_world, " +
+                        "last_x, last_y, last_z, last_yaw, last_pitch, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                        "ON CONFLICT DO NOTHING",
+                "INSERT INTO {sessions}(uuid, ip, token, expires_at) VALUES (?, ?, ?, ?) " +
+                        "ON CONFLICT (uuid) DO UPDATE SET ip = EXCLUDED.ip, token = EXCLUDED.token, expires_at = EXCLUDED.expires_at",
+                "CREATE TABLE IF NOT EXISTS {sessions} (" +
+                        "uuid BYTEA PRIMARY KEY," +
+                        "ip TEXT NOT NULL," +
+                        "token BYTEA NOT NULL," +
+                        "expires_at BIGINT NOT NULL" +
+                        ")",
+                List.of(
+                        "CREATE TABLE IF NOT EXISTS {worlds} (" +
+                                "id SERIAL PRIMARY KEY," +
+                                "name TEXT NOT NULL UNIQUE" +
+                                ")",
+                        "CREATE TABLE IF NOT EXISTS {accounts} (" +
+                                "uuid BYTEA PRIMARY KEY," +
+                                "name TEXT," +
+                                "password_hash TEXT NOT NULL," +
+                                "last_ip TEXT," +
+                                "last_world INTEGER," +
+                                "last_x DOUBLE PRECISION," +
+                                "last_y DOUBLE PRECISION," +
+                                "last_z DOUBLE PRECISION," +
+                                "last_yaw REAL," +
+                                "last_pitch REAL," +
+                                "created_at BIGINT," +
+                                "updated_at BIGINT" +
+                                ")",
+                        "CREATE UNIQUE INDEX IF NOT EXISTS {accounts}_name_lower ON {accounts} (lower(name))"
+                ));
+
+        private final String displayName;
+        private final String driverClass;
+        private final String urlFormat;
+        private final String nameEquals;
+        private final String insertWorld;
+        private final String importAccount;
+        private final String upsertSession;
+        private final String sessionSchema;
+        private final List<String> initialSchema;
+
+        Dialect(String displayName, String driverClass, String urlFormat, String nameEquals, String insertWorld,
+                String importAccount, String upsertSession, String sessionSchema, List<String> initialSchema) {
+            this.displayName = displayName;
+            this.driverClass = driverClass;
+            this.urlFormat = urlFormat;
+            this.nameEquals = nameEquals;
+            this.insertWorld = insertWorld;
+            this.importAccount = importAccount;
+            this.upsertSession = upsertSession;
+            this.sessionSchema = sessionSchema;
+            this.initialSchema = initialSchema;
+        }
+
+        private String url(String host, int port, String database) {
+            return String.format(Locale.ROOT, urlFormat, host, port, database);
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.authreg.storage;
+
+import com.authreg.config.AuthConfig;
+import org.sqlite.SQLiteConfig;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+class SqliteBackend implements StorageBackend {
+    private static final String SELECT_ACCOUNT = "SELECT a.uuid, a.name, a.password_hash, a.last_ip, w.name AS last_world, " +
+            "a.last_x, a.last_y, a.last_z, a.last_yaw, a.last_pitch, a.created_at, a.updated_at " +
+            "FROM accounts a LEFT JOIN worlds w ON w.id = a.last_world ";
+    private static final String FIND_BY_UUID = SELECT_ACCOUNT + "WHERE a.uuid = ?";
+    private static final String FIND_BY_NAME = SELECT_ACCOUNT + "WHERE a.name = ?";
+    private static final String INSERT_WORLD = "INSERT OR IGNORE INTO worlds(name) VALUES (?)";
+    private static final String FIND_WORLD = "SELECT id FROM worlds WHERE name = ?";
+    private static final String INSERT_ACCOUNT = "INSERT INTO accounts(uuid, name, password_hash, last_ip, last_world, last_x, last_y, last_z, last_yaw, last_pitch, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String IMPORT_ACCOUNT = "INSERT OR IGNORE INTO accounts(uuid, name, password_hash, last_ip, last_world, last_x, last_y, last_z, last_yaw, last_pitch, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String COUNT_ACCOUNTS = "SELECT COUNT(*) FROM accounts";
+    private static final String UPDATE_PASSWORD = "UPDATE accounts SET password_hash = ?, updated_at = ? WHERE uuid = ?";
+    private static final String REPLACE_HASH = "UPDATE accounts SET password_hash = ?, updated_at = ? WHERE uuid = ? AND password_hash = ?";
+    private static final String UPDATE_LOCATION = "UPDATE accounts SET last_world = ?, last_x = ?, last_y = ?, last_z = ?, last_yaw = ?, last_pitch = ?, updated_at = ? WHERE uuid = ?";
+    private static final String UPDATE_IP = "UPDATE accounts SET last_ip = ?, updated_at = ? WHERE uuid = ?";
+    private static final String FIND_SESSION = "SELECT ip, token, expires_at FROM sessions WHERE uuid = ?";
+    private static final String SAVE_SESSION = "INSERT OR REPLACE INTO sessions(uuid, ip, token, expires_at) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_SESSION = "DELETE FROM sessions WHERE uuid = ?";
+    private static final String PRUNE_SESSIONS = "DELETE FROM sessions WHERE expires_at < ?";
+
+    private final File dbFile;
+    private final AuthConfig.DatabaseSettings settings;
+    private final Logger logger;
+    private final Map<String, Integer> worldIds = new HashMap<>();
+    private StatementCache writer;
+    private volatile ReaderPool readers;
+
+    SqliteBackend(File dbFile, AuthConfig.DatabaseSettings settings, Logger logger) {
+        this.dbFile = dbFile;
+        this.settings = settings;
+        this.logger = logger;
+    }
+
+    @Override
+    public String name() {
+        return "SQLite";
+    }
+
+    @Override
+    public synchronized int open() throws SQLException {
+        File parent = dbFile.getParentFile();
+        if (parent != null && !parent.exists()) {
+            //noinspection ResultOfMethodCallIgnored
+            parent.mkdirs();
+        }
+        String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+        writer = new StatementCache(DriverManager.getConnection(url, sqliteConfig(false).toProperties()));
+        int version = SqliteSchema.migrate(writer.connection(), dbFile, logger);
+        PreparedStatement prune = writer.prepare(PRUNE_SESSIONS);
+        prune.setLong(1, System.currentTimeMillis());
+        prune.executeUpdate();
+        int readerCount = settings.getReaderConnections();
+        List<StatementCache> readerConnections = new ArrayList<>(readerCount);
+        for (int i = 0; i < readerCount; i++) {
+            readerConnections.add(new StatementCache(DriverManager.getConnection(url, sqliteConfig(true).toProperties())));
+        }
+        readers = new ReaderPool(readerConnections, settings.getBusyTimeoutMillis());
+        return version;
+    }
+
+    @Override
+    public int readerThreads() {
+        return settings.getReaderConnections();
+    }
+
+    @Override
+    public Optional<Account> findByUUID(UUID uuid) throws SQLException {
+        return findOne(FIND_BY_UUID, Uuids.toBytes(uuid));
+    }
+
+    @Override
+    public Optional<Account> findByName(String name) throws SQLException {
+        return findOne(FIND_BY_NAME, name);
+    }
+
+    @Override
+    public synchronized void insertAccount(Account account) throws SQLException {
+        StatementCache writer = requireWriter();
+        PreparedStatement ps = writer.prepare(INSERT_ACCOUNT);
+        ps.setBytes(1, Uuids.toBytes(account.getUuid()));
+        ps.setString(2, account.getName());
+        ps.setString(3, account.getPasswordHash());
+        ps.setString(4, account.getLastIp());
+        setWorld(ps, 5, account.getLastWorld());
+        JdbcSupport.setNullableDouble(ps, 6, account.getLastX());
+        JdbcSupport.setNullableDouble(ps, 7, account.getLastY());
+        JdbcSupport.setNullableDouble(ps, 8, account.getLastZ());
+        JdbcSupport.setNullableFloat(ps, 9, account.getLastYaw());
+        JdbcSupport.setNullableFloat(ps, 10, account.getLastPitch());
+        ps.setLong(11, account.getCreatedAt());
+        ps.setLong(12, account.getUpdatedAt());
+        ps.executeUpdate();
+    }
+
+    @Override
+    public synchronized void updatePassword(UUID uuid, String passwordHash, long now) throws SQLException {
+        StatementCache writer = requireWriter();
+        Connection connection = writer.connection();
+        byte[] key = Uuids.toBytes(uuid);
+        try {
+            connection.setAutoCommit(false);
+            PreparedStatement ps = writer.prepare(UPDATE_PASSWORD);
+            ps.setString(1, passwordHash);
+            ps.setLong(2, now);
+            ps.setBytes(3, key);
+            ps.executeUpdate();
+            PreparedStatement delete = writer.prepare(DELETE_SESSION);
+            delete.setBytes(1, key);
+            delete.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+            }
+            throw e;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean replacePasswordHash(UUID uuid, String expectedHash, String passwordHash, long now) throws SQLException {
+        PreparedStatement ps = requireWriter().prepare(REPLACE_HASH);
+        ps.setString(1, passwordHash);
+        ps.setLong(2, now);
+        ps.setBytes(3, Uuids.toBytes(uuid));
+        ps.setString(4, expectedHash);
+        return ps.executeUpdate() > 0;
+    }
+
+    @Override
+    public Optional<TrustedSession> findSession(UUID uuid) throws SQLException {
+        ReaderPool pool = readers;
+        if (pool == null) {
+            throw new SQLException("SQLite storage is not open");
+        }
+        StatementCache reader = pool.borrow();
+        try {
+            PreparedStatement ps = reader.prepare(FIND_SESSION);
+            ps.setBytes(1, Uuids.toBytes(uuid));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next()
+                        ? Optional.of(new TrustedSession(uuid, rs.getString(1), rs.getBytes(2), rs.getLong(3)))
+                        : Optional.empty();
+            }
+        } finally {
+            pool.release(reader);
+        }
+    }
+
+    @Override
+    public synchronized void saveSession(TrustedSession session) throws SQLException {
+        PreparedStatement ps = requireWriter().prepare(SAVE_SESSION);
+        ps.setBytes(1, Uuids.toBytes(session.getUuid()));
+        ps.setString(2, session.getIp());
+        ps.setBytes(3, session.getToken());
+        ps.setLong(4, session.getExpiresAt());
+        ps.executeUpdate();
+    }
+
+    @Override
+    public synchronized void deleteSession(UUID uuid) throws SQLException {
+        PreparedStatement ps = requireWriter().prepare(DELETE_SESSION);
+        ps.setBytes(1, Uuids.toBytes(uuid));
+        ps.executeUpdate();
+    }
+
+    @Override
+    public synchronized void applyWrites(List<Map.Entry<UUID, WriteBehindBuffer.PendingWrite>> batch) throws SQLException {
+        StatementCache writer = requireWriter();
+        Connection connection = writer.connection();
+        PreparedStatement location = writer.prepare(UPDATE_LOCATION);
+        PreparedStatement ip = writer.prepare(UPDATE_IP);
+        try {
+            connection.setAutoCommit(false);
+            boolean hasLocations = false;
+            boolean hasIps = false;
+            for (Map.Entry<UUID, WriteBehindBuffer.PendingWrite> entry : batch) {
+                WriteBehindBuffer.PendingWrite write = entry.getValue();
+                byte[] uuid = Uuids.toBytes(entry.getKey());
+                if (write.hasLocation) {
+                    setWorld(location, 1, write.world);
+                    JdbcSupport.setNullableDouble(location, 2, write.x);
+                    JdbcSupport.setNullableDouble(location, 3, write.y);
+                    JdbcSupport.setNullableDouble(location, 4, write.z);
+                    JdbcSupport.setNullableFloat(location, 5, write.yaw);
+                    JdbcSupport.setNullableFloat(location, 6, write.pitch);
+                    location.setLong(7, write.updatedAt);
+                    location.setBytes(8, uuid);
+                    location.addBatch();
+                    hasLocations = true;
+                }
+                if (write.hasIp) {
+                    ip.setString(1, write.ip);
+                    ip.setLong(2, write.updatedAt);
+                    ip.setBytes(3, uuid);
+                    ip.addBatch();
+                    hasIps = true;
+                }
+            }
+            if (hasLocations) {
+                location.executeBatch();
+            }
+            if (hasIps) {
+                ip.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                location.clearBatch();
+                ip.clearBatch();
+                connection.rollback();
+            } catch (SQLException ignored) {
+            }
+            worldIds.clear();
+            throw e;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public synchronized int importAccounts(List<Account> accounts) throws SQLException {
+        StatementCache writer = requireWriter();
+        Connection connection = writer.connection();
+        PreparedStatement ps = writer.prepare(IMPORT_ACCOUNT);
+        try {
+            connection.setAutoCommit(false);
+            for (Account account : accounts) {
+                ps.setBytes(1, Uuids.toBytes(account.getUuid()));
+                ps.setString(2, account.getName());
+                ps.setString(3, account.getPasswordHash());
+                ps.setString(4, account.getLastIp());
+                setWorld(ps, 5, account.getLastWorld());
+                JdbcSupport.setNullableDouble(ps, 6, account.getLastX());
+                JdbcSupport.setNullableDouble(ps, 7, account.getLastY());
+                JdbcSupport.setNullableDouble(ps, 8, account.getLastZ());
+                JdbcSupport.setNullableFloat(ps, 9, account.getLastYaw());
+                JdbcSupport.setNullableFloat(ps, 10, account.getLastPitch());
+                ps.setLong(11, account.getCreatedAt());
+                ps.setLong(12, account.getUpdatedAt());
+                ps.addBatch();
+            }
+            int inserted = JdbcSupport.countInserted(ps.executeBatch());
+            connection.commit();
+            return inserted;
+        } catch (SQLException e) {
+            try {
+                ps.clearBatch();
+                connection.rollback();
+            } catch (SQLException ignored) {
+            }
+            worldIds.clear();
+            throw e;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public long countAccounts() throws SQLException {
+        ReaderPool pool = readers;
+        if (pool == null) {
+            throw new SQLException("SQLite storage is not open");
+        }
+        StatementCache reader = pool.borrow();
+        try (ResultSet rs = reader.prepare(COUNT_ACCOUNTS).executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        } finally {
+            pool.release(reader);
+        }
+    }
+
+    @Override
+    public void exportAccounts(Consumer<Account> sink) throws SQLException {
+        String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+        try (Connection connection = DriverManager.getConnection(url, sqliteConfig(true).toProperties());
+             PreparedStatement ps = connection.prepareStatement(SELECT_ACCOUNT);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                sink.accept(JdbcSupport.map(rs));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        ReaderPool pool = readers;
+        readers = null;
+        if (pool != null) {
+            pool.close();
+        }
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        worldIds.clear();
+    }
+
+    private Optional<Account> findOne(String sql, Object key) throws SQLException {
+        ReaderPool pool = readers;
+        if (pool == null) {
+            throw new SQLException("SQLite storage is not open");
+        }
+        StatementCache reader = pool.borrow();
+        try {
+            PreparedStatement ps = reader.prepare(sql);
+            ps.setObject(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(JdbcSupport.map(rs)) : Optional.empty();
+            }
+        } finally {
+            pool.release(reader);
+        }
+    }
+
+    private StatementCache requireWriter() throws SQLException {
+        if (writer == null) {
+            throw new SQLException("SQLite storage is not open");
+        }
+        return writer;
+    }
+
+    private void setWorld(PreparedStatement ps, int index, String world) throws SQLException {
+        if (world == null) {
+            ps.setNull(index, Types.INTEGER);
+            return;
+        }
+        Integer id = worldIds.get(world);
+        if (id == null) {
+            PreparedStatement insert = writer.prepare(INSERT_WORLD);
+            insert.setString(1, world);
+            insert.executeUpdate();
+            PreparedStatement find = writer.prepare(FIND_WORLD);
+            find.setString(1, world);
+            try (ResultSet rs = find.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("world '" + world + "' was not interned");
+                }
+                id = rs.getInt(1);
+            }
+            worldIds.put(world, id);
+        }
+        ps.setInt(index, id);
+    }
+
+    private SQLiteConfig sqliteConfig(boolean readOnly) {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(readOnly);
+        config.setBusyTimeout(settings.getBusyTimeoutMillis());
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(settings.getMmapSizeMb() * 1024L * 1024L));
+        if (!readOnly) {
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            config.setSynchronous(synchronousMode(settings.getSynchronous()));
+        }
+        return config;
+    }
+
+    private SQLiteConfig.SynchronousMode synchronousMode(String value) {
+        try {
+            return SQLiteConfig.SynchronousMode.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            logger.warning("Unknown database.synchronous value '" + value + "', using NORMAL.");
+            return SQLiteConfig.SynchronousMode.NORMAL;
+        }
+    }
+}
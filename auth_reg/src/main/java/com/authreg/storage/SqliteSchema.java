@@ -0,0 +1,193 @@
+package com.authreg.storage;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.logging.Logger;
+
+final class SqliteSchema {
+    private static final String CREATE_WORLDS = "CREATE TABLE IF NOT EXISTS worlds (" +
+            "id INTEGER PRIMARY KEY," +
+            "name TEXT NOT NULL UNIQUE" +
+            ");";
+    private static final String CREATE_ACCOUNTS = "CREATE TABLE IF NOT EXISTS %s (" +
+            "uuid BLOB PRIMARY KEY," +
+            "name TEXT UNIQUE COLLATE NOCASE," +
+            "password_hash TEXT NOT NULL," +
+            "last_ip TEXT," +
+            "last_world INTEGER REFERENCES worlds(id)," +
+            "last_x REAL," +
+            "last_y REAL," +
+            "last_z REAL," +
+            "last_yaw REAL," +
+            "last_pitch REAL," +
+            "created_at INTEGER," +
+            "updated_at INTEGER" +
+            ") WITHOUT ROWID;";
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "legacy location columns", SqliteSchema::addLocationColumns),
+            new Migration(2, "compact account keys and interned worlds", SqliteSchema::compactAccounts),
+            new Migration(3, "trusted sessions", SqliteSchema::createSessions)
+    );
+
+    private static final int COMPACT_VERSION = 2;
+    static final int LATEST_VERSION = MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+
+    private SqliteSchema() {
+    }
+
+    static int migrate(Connection connection, File dbFile, Logger logger) throws SQLException {
+        int version;
+        boolean created = false;
+        try (Statement st = connection.createStatement()) {
+            version = userVersion(st);
+            if (version == 0) {
+                String uuidType = uuidColumnType(st);
+                if (uuidType == null) {
+                    st.executeUpdate(CREATE_WORLDS);
+                    st.executeUpdate(String.format(CREATE_ACCOUNTS, "accounts"));
+                    version = COMPACT_VERSION;
+                    setUserVersion(st, version);
+                    created = true;
+                } else if (!"TEXT".equalsIgnoreCase(uuidType)) {
+                    version = COMPACT_VERSION;
+                    setUserVersion(st, version);
+                } else {
+                    backup(st, dbFile, version, logger);
+                }
+            }
+            if (version > LATEST_VERSION) {
+                throw new SQLException("database schema v" + version + " is newer than this plugin supports (v" + LATEST_VERSION + ")");
+            }
+            if (!created && version > 0 && version < LATEST_VERSION) {
+                backup(st, dbFile, version, logger);
+            }
+        }
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version <= version) {
+                continue;
+            }
+            long started = System.currentTimeMillis();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement st = connection.createStatement()) {
+                migration.step.apply(connection, st, logger);
+                setUserVersion(st, migration.version);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw new SQLException("migration to v" + migration.version + " (" + migration.description + ") failed: " + e.getMessage(), e);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            version = migration.version;
+            logger.info("Database migrated to v" + version + " (" + migration.description + ") in "
+                    + (System.currentTimeMillis() - started) + " ms.");
+        }
+        return version;
+    }
+
+    private static void addLocationColumns(Connection connection, Statement st, Logger logger) throws SQLException {
+        List<String> columns = List.of("last_world TEXT", "last_x REAL", "last_y REAL", "last_z REAL", "last_yaw REAL", "last_pitch REAL");
+        for (String column : columns) {
+            String name = column.substring(0, column.indexOf(' '));
+            if (!hasColumn(st, "accounts", name)) {
+                st.executeUpdate("ALTER TABLE accounts ADD COLUMN " + column + ";");
+            }
+        }
+    }
+
+    private static void compactAccounts(Connection connection, Statement st, Logger logger) throws SQLException {
+        st.executeUpdate(CREATE_WORLDS);
+        st.executeUpdate("INSERT OR IGNORE INTO worlds(name) " +
+                "SELECT DISTINCT last_world FROM accounts WHERE last_world IS NOT NULL;");
+        st.executeUpdate("DROP TABLE IF EXISTS accounts_v2;");
+        st.executeUpdate(String.format(CREATE_ACCOUNTS, "accounts_v2"));
+        int migrated = st.executeUpdate("INSERT INTO accounts_v2(uuid, name, password_hash, last_ip, last_world, " +
+                "last_x, last_y, last_z, last_yaw, last_pitch, created_at, updated_at) " +
+                "SELECT unhex(replace(a.uuid, '-', '')), a.name, a.password_hash, a.last_ip, w.id, " +
+                "a.last_x, a.last_y, a.last_z, a.last_yaw, a.last_pitch, a.created_at, a.updated_at " +
+                "FROM accounts a LEFT JOIN worlds w ON w.name = a.last_world " +
+                "WHERE length(a.uuid) = 36 AND unhex(replace(a.uuid, '-', '')) IS NOT NULL;");
+        int total;
+        try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM accounts")) {
+            total = rs.next() ? rs.getInt(1) : migrated;
+        }
+        st.executeUpdate("DROP TABLE accounts;");
+        st.executeUpdate("ALTER TABLE accounts_v2 RENAME TO accounts;");
+        if (migrated < total) {
+            logger.warning((total - migrated) + " accounts with malformed UUIDs were left out of the migration.");
+        }
+    }
+
+    private static void createSessions(Connection connection, Statement st, Logger logger) throws SQLException {
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS sessions (" +
+                "uuid BLOB PRIMARY KEY," +
+                "ip TEXT NOT NULL," +
+                "token BLOB NOT NULL," +
+                "expires_at INTEGER NOT NULL" +
+                ") WITHOUT ROWID;");
+    }
+
+    private static void backup(Statement st, File dbFile, int version, Logger logger) throws SQLException {
+        File backup = new File(dbFile.getParentFile(), dbFile.getName() + ".v" + version + ".bak");
+        if (backup.exists()) {
+            return;
+        }
+        st.executeUpdate("VACUUM INTO '" + backup.getAbsolutePath().replace("'", "''") + "'");
+        logger.info("Database backup written to " + backup.getName() + " before migrating.");
+    }
+
+    private static int userVersion(Statement st) throws SQLException {
+        try (ResultSet rs = st.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void setUserVersion(Statement st, int version) throws SQLException {
+        st.executeUpdate("PRAGMA user_version = " + version);
+    }
+
+    private static String uuidColumnType(Statement st) throws SQLException {
+        try (ResultSet rs = st.executeQuery("PRAGMA table_info(accounts)")) {
+            while (rs.next()) {
+                if ("uuid".equalsIgnoreCase(rs.getString("name"))) {
+                    return rs.getString("type");
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasColumn(Statement st, String table, String column) throws SQLException {
+        try (ResultSet rs = st.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void apply(Connection connection, Statement st, Logger logger) throws SQLException;
+    }
+
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final Step step;
+
+        private Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+}
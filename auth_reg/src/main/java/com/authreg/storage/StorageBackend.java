@@ -0,0 +1,42 @@
+package com.authreg.storage;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+interface StorageBackend {
+    String name();
+
+    int open() throws SQLException;
+
+    int readerThreads();
+
+    Optional<Account> findByUUID(UUID uuid) throws SQLException;
+
+    Optional<Account> findByName(String name) throws SQLException;
+
+    void insertAccount(Account account) throws SQLException;
+
+    void updatePassword(UUID uuid, String passwordHash, long now) throws SQLException;
+
+    boolean replacePasswordHash(UUID uuid, String expectedHash, String passwordHash, long now) throws SQLException;
+
+    Optional<TrustedSession> findSession(UUID uuid) throws SQLException;
+
+    void saveSession(TrustedSession session) throws SQLException;
+
+    void deleteSession(UUID uuid) throws SQLException;
+
+    void applyWrites(List<Map.Entry<UUID, WriteBehindBuffer.PendingWrite>> batch) throws SQLException;
+
+    int importAccounts(List<Account> accounts) throws SQLException;
+
+    long countAccounts() throws SQLException;
+
+    void exportAccounts(Consumer<Account> sink) throws SQLException;
+
+    void close();
+}
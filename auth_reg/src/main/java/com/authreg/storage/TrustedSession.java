@@ -0,0 +1,33 @@
+package com.authreg.storage;
+
+import java.util.UUID;
+
+public final class TrustedSession {
+    private final UUID uuid;
+    private final String ip;
+    private final byte[] token;
+    private final long expiresAt;
+
+    public TrustedSession(UUID uuid, String ip, byte[] token, long expiresAt) {
+        this.uuid = uuid;
+        this.ip = ip;
+        this.token = token;
+        this.expiresAt = expiresAt;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public byte[] getToken() {
+        return token.clone();
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
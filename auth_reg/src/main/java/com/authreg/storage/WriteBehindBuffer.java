@@ -0,0 +1,97 @@
+package com.authreg.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+class WriteBehindBuffer {
+    private final Map<UUID, PendingWrite> pending = new ConcurrentHashMap<>();
+
+    void location(UUID uuid, String world, Double x, Double y, Double z, Float yaw, Float pitch, long now) {
+        pending.compute(uuid, (key, current) -> {
+            PendingWrite base = current == null ? PendingWrite.EMPTY : current;
+            return new PendingWrite(true, world, x, y, z, yaw, pitch, base.hasIp, base.ip, now);
+        });
+    }
+
+    void ip(UUID uuid, String ip, long now) {
+        pending.compute(uuid, (key, current) -> {
+            PendingWrite base = current == null ? PendingWrite.EMPTY : current;
+            return new PendingWrite(base.hasLocation, base.world, base.x, base.y, base.z, base.yaw, base.pitch, true, ip, now);
+        });
+    }
+
+    int size() {
+        return pending.size();
+    }
+
+    Account overlay(Account account) {
+        PendingWrite write = pending.get(account.getUuid());
+        return write == null ? account : write.applyTo(account);
+    }
+
+    List<Map.Entry<UUID, PendingWrite>> drain() {
+        List<Map.Entry<UUID, PendingWrite>> drained = new ArrayList<>(pending.size());
+        for (Map.Entry<UUID, PendingWrite> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                drained.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        return drained;
+    }
+
+    void restore(List<Map.Entry<UUID, PendingWrite>> failed) {
+        for (Map.Entry<UUID, PendingWrite> entry : failed) {
+            pending.merge(entry.getKey(), entry.getValue(), PendingWrite::over);
+        }
+    }
+
+    static final class PendingWrite {
+        private static final PendingWrite EMPTY = new PendingWrite(false, null, null, null, null, null, null, false, null, 0L);
+
+        final boolean hasLocation;
+        final String world;
+        final Double x;
+        final Double y;
+        final Double z;
+        final Float yaw;
+        final Float pitch;
+        final boolean hasIp;
+        final String ip;
+        final long updatedAt;
+
+        private PendingWrite(boolean hasLocation, String world, Double x, Double y, Double z, Float yaw, Float pitch,
+                             boolean hasIp, String ip, long updatedAt) {
+            this.hasLocation = hasLocation;
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.yaw = yaw;
+            this.pitch = pitch;
+            this.hasIp = hasIp;
+            this.ip = ip;
+            this.updatedAt = updatedAt;
+        }
+
+        private PendingWrite over(PendingWrite older) {
+            PendingWrite location = hasLocation || !older.hasLocation ? this : older;
+            PendingWrite ip = hasIp || !older.hasIp ? this : older;
+            return new PendingWrite(location.hasLocation, location.world, location.x, location.y, location.z,
+                    location.yaw, location.pitch, ip.hasIp, ip.ip, Math.max(updatedAt, older.updatedAt));
+        }
+
+        private Account applyTo(Account account) {
+            Account result = account;
+            if (hasLocation) {
+                result = result.withLastLocation(world, x, y, z, yaw, pitch, updatedAt);
+            }
+            if (hasIp) {
+                result = result.withLastIp(ip, updatedAt);
+            }
+            return result;
+        }
+    }
+}
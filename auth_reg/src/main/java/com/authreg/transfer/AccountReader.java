@@ -0,0 +1,16 @@
+package com.authreg.transfer;
+
+import com.authreg.storage.Account;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+interface AccountReader extends Closeable {
+    Account next() throws IOException;
+
+    long position();
+
+    long size();
+
+    long malformed();
+}
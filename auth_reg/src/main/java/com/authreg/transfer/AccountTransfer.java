@@ -0,0 +1,209 @@
+package com.authreg.transfer;
+
+import com.authreg.AuthRegPlugin;
+import com.authreg.security.HashingService;
+import com.authreg.storage.Account;
+import com.authreg.storage.AccountStorage;
+import org.bukkit.command.CommandSender;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class AccountTransfer {
+    private static final int MAX_IN_FLIGHT = 2;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final AuthRegPlugin plugin;
+    private final AtomicReference<Thread> running = new AtomicReference<>();
+
+    public AccountTransfer(AuthRegPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public boolean isRunning() {
+        return running.get() != null;
+    }
+
+    public File resolve(String path, boolean export) {
+        File dataFolder = plugin.getDataFolder().getAbsoluteFile();
+        File root = export ? dataFolder : dataFolder.getParentFile();
+        try {
+            File file = new File(dataFolder, path).getCanonicalFile();
+            return file.toPath().startsWith(root.getCanonicalFile().toPath()) ? file : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public boolean startImport(CommandSender sender, TransferFormat format, File file) {
+        return start(() -> runImport(sender, format, file));
+    }
+
+    public boolean startExport(CommandSender sender, TransferFormat format, File file) {
+        return start(() -> runExport(sender, format, file));
+    }
+
+    public void shutdown() {
+        Thread thread = running.get();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private boolean start(Runnable job) {
+        Thread thread = new Thread(() -> {
+            try {
+                job.run();
+            } finally {
+                running.set(null);
+            }
+        }, "auth_reg-transfer");
+        thread.setDaemon(true);
+        if (!running.compareAndSet(null, thread)) {
+            return false;
+        }
+        thread.start();
+        return true;
+    }
+
+    private void runImport(CommandSender sender, TransferFormat format, File file) {
+        AccountStorage storage = plugin.getAccountStorage();
+        HashingService hashing = plugin.getHashingService();
+        int batchSize = plugin.getAuthConfig().getTransferBatchSize();
+        Progress progress = new Progress(sender, "Импорт");
+        Deque<CompletableFuture<Integer>> inFlight = new ArrayDeque<>();
+        long accepted = 0L;
+        long imported = 0L;
+        long unsupported = 0L;
+        long malformed = 0L;
+        boolean cancelled = false;
+        try (AccountReader reader = format.openReader(file)) {
+            List<Account> batch = new ArrayList<>(batchSize);
+            Account account;
+            while ((account = reader.next()) != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    cancelled = true;
+                    break;
+                }
+                if (hashing.supports(account.getPasswordHash())) {
+                    batch.add(account);
+                    accepted++;
+                } else {
+                    unsupported++;
+                }
+                if (batch.size() >= batchSize) {
+                    inFlight.add(storage.importAccountsAsync(batch));
+                    batch = new ArrayList<>(batchSize);
+                    while (inFlight.size() > MAX_IN_FLIGHT) {
+                        imported += inFlight.poll().join();
+                    }
+                }
+                progress.update(accepted + unsupported + reader.malformed(), imported, reader.position(), reader.size());
+            }
+            if (!batch.isEmpty() && !cancelled) {
+                inFlight.add(storage.importAccountsAsync(batch));
+            }
+            while (!inFlight.isEmpty()) {
+                imported += inFlight.poll().join();
+            }
+            malformed = reader.malformed();
+        } catch (IOException | CompletionException e) {
+            progress.send(String.format(Locale.ROOT, "Импорт прерван: %s. Добавлено %d аккаунтов.", message(e), imported));
+            return;
+        }
+        progress.send(String.format(Locale.ROOT,
+                "Импорт %s за %s: добавлено %d, уже были в базе %d, несовместимый хеш %d, ошибочных строк %d.",
+                cancelled ? "остановлен" : "завершён", progress.elapsed(), imported, accepted - imported, unsupported, malformed));
+        if (unsupported > 0L) {
+            progress.send("Аккаунты с несовместимым хешем (не BCrypt и не Argon2id) пропущены: этим игрокам нужно зарегистрироваться заново.");
+        }
+    }
+
+    private void runExport(CommandSender sender, TransferFormat format, File file) {
+        AccountStorage storage = plugin.getAccountStorage();
+        Progress progress = new Progress(sender, "Экспорт");
+        File temp = new File(file.getPath() + ".tmp");
+        long[] written = new long[1];
+        try {
+            long total = storage.countAccounts();
+            try (AccountWriter writer = format.openWriter(temp)) {
+                storage.exportAccounts(account -> {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new CancellationException();
+                    }
+                    try {
+                        writer.write(account);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    written[0]++;
+                    progress.update(written[0], written[0], written[0], total);
+                });
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | SQLException | UncheckedIOException | CancellationException | CompletionException e) {
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+            progress.send(String.format(Locale.ROOT, "Экспорт прерван: %s.", e instanceof CancellationException ? "остановлен" : message(e)));
+            return;
+        }
+        progress.send(String.format(Locale.ROOT, "Экспорт завершён за %s: %d аккаунтов записано в %s.",
+                progress.elapsed(), written[0], file.getName()));
+    }
+
+    private static String message(Exception e) {
+        Throwable cause = e instanceof CompletionException || e instanceof UncheckedIOException ? e.getCause() : e;
+        return cause == null || cause.getMessage() == null ? e.toString() : cause.getMessage();
+    }
+
+    private final class Progress {
+        private final CommandSender sender;
+        private final String label;
+        private final long started = System.nanoTime();
+        private long lastReport = started;
+
+        private Progress(CommandSender sender, String label) {
+            this.sender = sender;
+            this.label = label;
+        }
+
+        private void update(long rows, long stored, long position, long size) {
+            long now = System.nanoTime();
+            if (now - lastReport < PROGRESS_INTERVAL_NANOS) {
+                return;
+            }
+            lastReport = now;
+            double seconds = (now - started) / 1e9;
+            double fraction = size > 0L ? Math.min(1.0, (double) position / size) : 0.0;
+            String eta = fraction > 0.0 ? formatSeconds((long) (seconds * (1.0 - fraction) / fraction)) : "?";
+            send(String.format(Locale.ROOT, "%s: обработано %d (%.0f%%), записано %d, %.0f строк/с, осталось ~%s",
+                    label, rows, fraction * 100.0, stored, rows / Math.max(seconds, 0.001), eta));
+        }
+
+        private String elapsed() {
+            return formatSeconds(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+        }
+
+        private void send(String message) {
+            plugin.getServer().getGlobalRegionScheduler().execute(plugin, () -> sender.sendMessage(message));
+        }
+
+        private String formatSeconds(long seconds) {
+            return seconds >= 60L ? (seconds / 60L) + " мин " + (seconds % 60L) + " с" : seconds + " с";
+        }
+    }
+}
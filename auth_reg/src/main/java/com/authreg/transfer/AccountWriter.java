@@ -0,0 +1,10 @@
+package com.authreg.transfer;
+
+import com.authreg.storage.Account;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+interface AccountWriter extends Closeable {
+    void write(Account account) throws IOException;
+}
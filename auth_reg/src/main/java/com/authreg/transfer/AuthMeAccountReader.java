@@ -0,0 +1,131 @@
+package com.authreg.transfer;
+
+import com.authreg.storage.Account;
+import org.sqlite.SQLiteConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+class AuthMeAccountReader implements AccountReader {
+    private static final String TABLE = "authme";
+
+    private final Connection connection;
+    private final ResultSet rows;
+    private final String[] columns;
+    private final long size;
+    private long position;
+    private long malformed;
+
+    AuthMeAccountReader(File file) throws IOException {
+        if (!file.isFile()) {
+            throw new IOException("file not found: " + file);
+        }
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        Connection opened = null;
+        try {
+            opened = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath(), config.toProperties());
+            try (Statement count = opened.createStatement();
+                 ResultSet rs = count.executeQuery("SELECT COUNT(*) FROM " + TABLE)) {
+                this.size = rs.next() ? rs.getLong(1) : 0L;
+            }
+            PreparedStatement query = opened.prepareStatement("SELECT * FROM " + TABLE);
+            this.rows = query.executeQuery();
+            ResultSetMetaData meta = rows.getMetaData();
+            this.columns = new String[meta.getColumnCount()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = meta.getColumnLabel(i + 1).toLowerCase(Locale.ROOT);
+            }
+            this.connection = opened;
+        } catch (SQLException e) {
+            if (opened != null) {
+                try {
+                    opened.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            throw new IOException("cannot read AuthMe table '" + TABLE + "': " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Account next() throws IOException {
+        try {
+            while (rows.next()) {
+                position++;
+                Account account;
+                try {
+                    account = parse();
+                } catch (RuntimeException e) {
+                    account = null;
+                }
+                if (account != null) {
+                    return account;
+                }
+                malformed++;
+            }
+            return null;
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private Account parse() throws SQLException {
+        Map<String, String> raw = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            raw.put(columns[i], rows.getString(i + 1));
+        }
+        String username = Rows.blankToNull(raw.get("username"));
+        String realname = Rows.blankToNull(raw.get("realname"));
+        if (realname == null || (realname.equals("Player") && !"player".equalsIgnoreCase(username))) {
+            realname = username;
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (Map.Entry<String, String> entry : raw.entrySet()) {
+            fields.putIfAbsent(Rows.column(entry.getKey()), entry.getValue());
+        }
+        fields.put("name", realname);
+        if (isZero(fields.get("last_x")) && isZero(fields.get("last_y")) && isZero(fields.get("last_z"))) {
+            fields.remove("last_world");
+        }
+        return Rows.account(fields::get);
+    }
+
+    private static boolean isZero(String value) {
+        String trimmed = Rows.blankToNull(value);
+        return trimmed == null || Double.parseDouble(trimmed) == 0.0;
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public long malformed() {
+        return malformed;
+    }
+
+    @Override
+    public void close() {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.authreg.transfer;
+
+import com.authreg.storage.Account;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class CsvAccountReader extends LineAccountReader {
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    CsvAccountReader(File file) throws IOException {
+        super(file);
+        String header = readHeader();
+        if (header == null) {
+            throw new IOException("file is empty");
+        }
+        List<String> names = split(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.putIfAbsent(Rows.column(names.get(i)), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("password_hash")) {
+            throw new IOException("CSV header must contain name and password_hash columns");
+        }
+    }
+
+    @Override
+    Account parse(String line) {
+        List<String> values = split(line);
+        return Rows.account(key -> {
+            Integer index = columns.get(key);
+            return index == null || index >= values.size() ? null : values.get(index);
+        });
+    }
+
+    static List<String> split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
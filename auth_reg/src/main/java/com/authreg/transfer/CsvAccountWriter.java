@@ -0,0 +1,56 @@
+package com.authreg.transfer;
+
+import com.authreg.storage.Account;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+class CsvAccountWriter implements AccountWriter {
+    private final BufferedWriter out;
+
+    CsvAccountWriter(File file) throws IOException {
+        this.out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+        out.write(String.join(",", Rows.COLUMNS));
+        out.newLine();
+    }
+
+    @Override
+    public void write(Account account) throws IOException {
+        out.write(account.getUuid().toString());
+        field(account.getName());
+        field(account.getPasswordHash());
+        field(account.getLastIp());
+        field(account.getLastWorld());
+        field(account.getLastX());
+        field(account.getLastY());
+        field(account.getLastZ());
+        field(account.getLastYaw());
+        field(account.getLastPitch());
+        field(account.getCreatedAt());
+        field(account.getUpdatedAt());
+        out.newLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void field(Object value) throws IOException {
+        out.write(',');
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            out.write(text);
+            return;
+        }
+        out.write('"');
+        out.write(text.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
@@ -0,0 +1,30 @@
+package com.authreg.transfer;
+
+import com.authreg.storage.Account;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+class JsonlAccountReader extends LineAccountReader {
+    JsonlAccountReader(File file) throws IOException {
+        super(file);
+    }
+
+    @Override
+    Account parse(String line) {
+        JsonObject object = JsonParser.parseString(line).getAsJsonObject();
+        Map<String, String> fields = new HashMap<>();
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            JsonElement value = entry.getValue();
+            if (value != null && value.isJsonPrimitive()) {
+                fields.putIfAbsent(Rows.column(entry.getKey()), value.getAsString());
+            }
+        }
+        return Rows.account(fields::get);
+    }
+}
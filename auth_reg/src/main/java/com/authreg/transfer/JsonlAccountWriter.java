@@ -0,0 +1,44 @@
+package com.authreg.transfer;
+
+import com.authreg.storage.Account;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+class JsonlAccountWriter implements AccountWriter {
+    private final BufferedWriter out;
+
+    JsonlAccountWriter(File file) throws IOException {
+        this.out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void write(Account account) throws IOException {
+        JsonObject object = new JsonObject();
+        object.addProperty("uuid", account.getUuid().toString());
+        object.addProperty("name", account.getName());
+        object.addProperty("password_hash", account.getPasswordHash());
+        object.addProperty("last_ip", account.getLastIp());
+        if (account.getLastWorld() != null) {
+            object.addProperty("last_world", account.getLastWorld());
+            object.addProperty("last_x", account.getLastX());
+            object.addProperty("last_y", account.getLastY());
+            object.addProperty("last_z", account.getLastZ());
+            object.addProperty("last_yaw", account.getLastYaw());
+            object.addProperty("last_pitch", account.getLastPitch());
+        }
+        object.addProperty("created_at", account.getCreatedAt());
+        object.addProperty("updated_at", account.getUpdatedAt());
+        out.write(object.toString());
+        out.newLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
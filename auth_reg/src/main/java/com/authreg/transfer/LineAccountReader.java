@@ -0,0 +1,74 @@
+package com.authreg.transfer;
+
+import com.authreg.storage.Account;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+abstract class LineAccountReader implements AccountReader {
+    private final CountingInputStream counter;
+    private final BufferedReader reader;
+    private final long size;
+    private long malformed;
+
+    LineAccountReader(File file) throws IOException {
+        this.size = file.length();
+        this.counter = new CountingInputStream(Files.newInputStream(file.toPath()));
+        this.reader = new BufferedReader(new InputStreamReader(counter, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    abstract Account parse(String line);
+
+    @Override
+    public Account next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            Account account;
+            try {
+                account = parse(line);
+            } catch (RuntimeException e) {
+                account = null;
+            }
+            if (account != null) {
+                return account;
+            }
+            malformed++;
+        }
+        return null;
+    }
+
+    String readHeader() throws IOException {
+        String line = reader.readLine();
+        if (line != null && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+            line = line.substring(1);
+        }
+        return line;
+    }
+
+    @Override
+    public long position() {
+        return counter.getCount();
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public long malformed() {
+        return malformed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,100 @@
+package com.authreg.transfer;
+
+import com.authreg.storage.Account;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+final class Rows {
+    static final String[] COLUMNS = {"uuid", "name", "password_hash", "last_ip", "last_world",
+            "last_x", "last_y", "last_z", "last_yaw", "last_pitch", "created_at", "updated_at"};
+
+    private static final Map<String, String> ALIASES = Map.ofEntries(
+            Map.entry("username", "name"),
+            Map.entry("realname", "name"),
+            Map.entry("player", "name"),
+            Map.entry("password", "password_hash"),
+            Map.entry("hash", "password_hash"),
+            Map.entry("ip", "last_ip"),
+            Map.entry("world", "last_world"),
+            Map.entry("x", "last_x"),
+            Map.entry("y", "last_y"),
+            Map.entry("z", "last_z"),
+            Map.entry("yaw", "last_yaw"),
+            Map.entry("pitch", "last_pitch"),
+            Map.entry("regdate", "created_at"),
+            Map.entry("lastlogin", "updated_at"),
+            Map.entry("unique_id", "uuid"));
+
+    private Rows() {
+    }
+
+    static String column(String header) {
+        String key = header.trim().toLowerCase(Locale.ROOT);
+        return ALIASES.getOrDefault(key, key);
+    }
+
+    static Account account(Function<String, String> field) {
+        String name = blankToNull(field.apply("name"));
+        String hash = blankToNull(field.apply("password_hash"));
+        if (name == null || hash == null) {
+            return null;
+        }
+        long created = seconds(toLong(field.apply("created_at"), 0L));
+        long updated = seconds(toLong(field.apply("updated_at"), created));
+        String world = blankToNull(field.apply("last_world"));
+        Double x = toDouble(field.apply("last_x"));
+        Double y = toDouble(field.apply("last_y"));
+        Double z = toDouble(field.apply("last_z"));
+        if (world == null || x == null || y == null || z == null) {
+            world = null;
+            x = null;
+            y = null;
+            z = null;
+        }
+        return new Account(uuid(field.apply("uuid"), name), name, hash, blankToNull(field.apply("last_ip")), created, updated,
+                world, x, y, z, world == null ? null : toFloat(field.apply("last_yaw")), world == null ? null : toFloat(field.apply("last_pitch")));
+    }
+
+    static UUID uuid(String raw, String name) {
+        String value = blankToNull(raw);
+        if (value == null) {
+            return UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes(StandardCharsets.UTF_8));
+        }
+        if (value.length() == 32) {
+            value = value.substring(0, 8) + "-" + value.substring(8, 12) + "-" + value.substring(12, 16)
+                    + "-" + value.substring(16, 20) + "-" + value.substring(20);
+        }
+        return UUID.fromString(value);
+    }
+
+    static String blankToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static long seconds(long value) {
+        return value > 100_000_000_000L ? value / 1000L : value;
+    }
+
+    private static long toLong(String value, long fallback) {
+        String trimmed = blankToNull(value);
+        return trimmed == null ? fallback : Long.parseLong(trimmed);
+    }
+
+    private static Double toDouble(String value) {
+        String trimmed = blankToNull(value);
+        return trimmed == null ? null : Double.valueOf(trimmed);
+    }
+
+    private static Float toFloat(String value) {
+        String trimmed = blankToNull(value);
+        return trimmed == null ? null : Float.valueOf(trimmed);
+    }
+}
@@ -0,0 +1,56 @@
+package com.authreg.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+public enum TransferFormat {
+    CSV(true),
+    JSONL(true),
+    AUTHME(false);
+
+    private final boolean exportable;
+
+    TransferFormat(boolean exportable) {
+        this.exportable = exportable;
+    }
+
+    public static TransferFormat byName(String name) {
+        for (TransferFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    public boolean isExportable() {
+        return exportable;
+    }
+
+    public String id() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    AccountReader openReader(File file) throws IOException {
+        switch (this) {
+            case CSV:
+                return new CsvAccountReader(file);
+            case JSONL:
+                return new JsonlAccountReader(file);
+            default:
+                return new AuthMeAccountReader(file);
+        }
+    }
+
+    AccountWriter openWriter(File file) throws IOException {
+        switch (this) {
+            case CSV:
+                return new CsvAccountWriter(file);
+            case JSONL:
+                return new JsonlAccountWriter(file);
+            default:
+                throw new IOException(id() + " does not support export");
+        }
+    }
+}
@@ -3,206 +3,451 @@ package com.authreg.user;
 import com.authreg.AuthRegPlugin;
 import com.authreg.config.AuthConfig;
 import com.authreg.config.Messages;
+import com.authreg.listener.ProtectionGate;
+import com.authreg.metrics.LatencyHistogram;
+import com.authreg.metrics.Metrics;
+import com.authreg.security.HashingService;
+import com.authreg.security.IpCooldownTable;
+import com.authreg.security.LoginRateLimiter;
+import com.authreg.security.SessionTokens;
 import com.authreg.storage.Account;
 import com.authreg.storage.AccountStorage;
+import com.authreg.storage.TrustedSession;
 import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
-import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 public class AuthManager {
     private final AuthRegPlugin plugin;
     private final AccountStorage storage;
+    private final HashingService hashing;
+    private final LoginRateLimiter rateLimiter;
+    private final SessionTokens sessionTokens;
     private final AuthConfig config;
     private final Messages messages;
-
-    private final Set<UUID> authenticated = ConcurrentHashMap.newKeySet();
-    private final Map<UUID, Integer> attempts = new ConcurrentHashMap<>();
-    private final Map<UUID, ScheduledTask> reminders = new ConcurrentHashMap<>();
-    private final Map<UUID, ScheduledTask> timeouts = new ConcurrentHashMap<>();
-    private final Map<UUID, Location> previousLocations = new ConcurrentHashMap<>();
-    private final Map<String, IpStamp> ipUsage = new ConcurrentHashMap<>();
-    private final Map<UUID, Long> damageProtectionUntil = new ConcurrentHashMap<>();
+    private final ProtectionGate protectionGate;
+
+    private final Map<UUID, PlayerSession> sessions = new ConcurrentHashMap<>();
+    private final TimingWheel loginTimers;
+    private final Map<UUID, PreLogin> preLogins = new ConcurrentHashMap<>();
+    private final IpCooldownTable ipUsage;
+    private final ScheduledTask expiryTask;
+    private final LongAdder joins;
+    private final LongAdder logins;
+    private final LongAdder loginFailures;
+    private final LongAdder registrations;
+    private final LongAdder resumed;
+    private final LongAdder timeouts;
+    private final LongAdder attemptKicks;
+    private final LongAdder rateLimited;
+    private final LongAdder cooldownRefused;
+    private final LatencyHistogram loginLatency;
+    private final LatencyHistogram playerHop;
+    private static final long PRE_LOGIN_WAIT_MS = 2000L;
+    private static final long EXPIRY_PERIOD_MS = 1000L;
+    private static final long PRE_LOGIN_TTL_MS = 60000L;
     private static final long POST_LOGIN_PROTECTION_MS = 2000L;
 
-    public AuthManager(AuthRegPlugin plugin, AccountStorage storage, AuthConfig config, Messages messages) {
+    public AuthManager(AuthRegPlugin plugin, AccountStorage storage, HashingService hashing, LoginRateLimiter rateLimiter,
+                       SessionTokens sessionTokens, AuthConfig config, Messages messages, ProtectionGate protectionGate) {
         this.plugin = plugin;
         this.storage = storage;
+        this.hashing = hashing;
+        this.rateLimiter = rateLimiter;
+        this.sessionTokens = sessionTokens;
         this.config = config;
         this.messages = messages;
+        this.protectionGate = protectionGate;
+        this.loginTimers = new TimingWheel(plugin);
+        this.ipUsage = new IpCooldownTable(config.getIpCooldownMaxEntries());
+        Metrics metrics = plugin.getMetrics();
+        this.joins = metrics.counter("joins");
+        this.logins = metrics.counter("logins");
+        this.loginFailures = metrics.counter("login_failures");
+        this.registrations = metrics.counter("registrations");
+        this.resumed = metrics.counter("sessions_resumed");
+        this.timeouts = metrics.counter("login_timeouts");
+        this.attemptKicks = metrics.counter("max_attempt_kicks");
+        this.rateLimited = metrics.counter("rate_limited");
+        this.cooldownRefused = metrics.counter("ip_cooldown_refused");
+        this.loginLatency = metrics.histogram("login");
+        this.playerHop = metrics.histogram("player_hop");
+        metrics.gauge("sessions_online", sessions::size);
+        metrics.gauge("sessions_unauthenticated", this::countUnauthenticated);
+        metrics.gauge("ip_cooldown_entries", ipUsage::size);
+        this.expiryTask = plugin.getServer().getAsyncScheduler().runAtFixedRate(plugin, task -> expire(),
+                EXPIRY_PERIOD_MS, EXPIRY_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public void handlePreLogin(AsyncPlayerPreLoginEvent event) {
+        UUID uuid = event.getUniqueId();
+        preLogins.remove(uuid);
+        InetAddress address = event.getAddress();
+        if (!rateLimiter.tryAcquireConnection(address)) {
+            rateLimited.increment();
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, messages.rawComponent("login.rate_limited"));
+            return;
+        }
+        long cooldownLeft = ipCooldownLeft(event.getName(), address);
+        if (cooldownLeft > 0L) {
+            cooldownRefused.increment();
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, messages.rawTemplate("ip.cooldown")
+                    .renderComponent("seconds_left", String.valueOf((cooldownLeft + 999L) / 1000L)));
+            return;
+        }
+        CompletableFuture<Optional<TrustedSession>> trusted = config.getSessionSettings().isEnabled()
+                ? storage.findSessionAsync(uuid)
+                : CompletableFuture.completedFuture(Optional.empty());
+        CompletableFuture<PreLogin> lookup = storage.findByUUIDAsync(uuid)
+                .thenCombine(trusted.exceptionally(e -> Optional.empty()),
+                        (account, session) -> new PreLogin(account, session.orElse(null), System.currentTimeMillis()));
+        try {
+            preLogins.put(uuid, lookup.orTimeout(PRE_LOGIN_WAIT_MS, TimeUnit.MILLISECONDS).join());
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("Pre-login lookup failed for " + event.getName() + ": " + e.getMessage());
+        }
     }
 
     public void handleJoin(Player player) {
-        authenticated.remove(player.getUniqueId());
-        attempts.put(player.getUniqueId(), 0);
-        previousLocations.put(player.getUniqueId(), player.getLocation());
-        damageProtectionUntil.remove(player.getUniqueId());
-        cleanupIpUsage();
-        sendPrompt(player);
-        loadLastLocation(player);
-        teleportToLobby(player);
-        startReminder(player);
-        startTimeout(player);
+        UUID uuid = player.getUniqueId();
+        joins.increment();
+        protectionGate.guard(uuid);
+        PlayerSession session = new PlayerSession(uuid);
+        session.setPreviousLocation(player.getLocation());
+        cancelTasks(sessions.put(uuid, session));
+        PreLogin resolved = preLogins.remove(uuid);
+        if (resolved != null && canResume(player, resolved)) {
+            resume(player, session);
+            return;
+        }
+        if (resolved != null) {
+            resolved.account.map(this::accountToLocation).ifPresent(session::setPreviousLocation);
+            sendPrompt(player, resolved.account);
+        } else {
+            CompletableFuture<Optional<Account>> account = storage.findByUUIDAsync(uuid);
+            sendPrompt(player, account);
+            loadLastLocation(player, session, account);
+        }
+        teleportToLobby(player, session);
+        if (storage.isReady()) {
+            startReminder(player, session);
+            startTimeout(player, session);
+        } else {
+            storage.whenReady().thenRun(() -> runOnPlayer(player, () -> {
+                if (!session.isAuthenticated() && sessions.get(uuid) == session) {
+                    startReminder(player, session);
+                    startTimeout(player, session);
+                }
+            }));
+        }
     }
 
     public void handleQuit(Player player) {
         UUID uuid = player.getUniqueId();
-        cancelTask(reminders.remove(uuid));
-        cancelTask(timeouts.remove(uuid));
-        if (isAuthenticated(uuid)) {
+        PlayerSession session = sessions.remove(uuid);
+        protectionGate.release(uuid);
+        if (session == null) {
+            return;
+        }
+        cancelTasks(session);
+        if (session.isAuthenticated()) {
             storage.updateLastLocationAsync(uuid, player.getLocation());
+            if (session.isResumable()) {
+                rememberSession(uuid, playerAddress(player));
+            }
+        }
+    }
+
+    public void revokeSession(UUID uuid) {
+        PlayerSession session = sessions.get(uuid);
+        if (session != null) {
+            session.revokeResume();
         }
-        authenticated.remove(uuid);
-        attempts.remove(uuid);
-        previousLocations.remove(uuid);
-        damageProtectionUntil.remove(uuid);
+    }
+
+    public PlayerSession getSession(UUID uuid) {
+        return sessions.get(uuid);
     }
 
     public boolean isAuthenticated(UUID uuid) {
-        return authenticated.contains(uuid);
+        PlayerSession session = sessions.get(uuid);
+        return session != null && session.isAuthenticated();
     }
 
-    public boolean isIpBlocked(String playerName, String ip) {
-        if (ip == null) return false;
-        IpStamp stamp = ipUsage.get(ip);
-        if (stamp == null) return false;
-        if (stamp.playerName.equalsIgnoreCase(playerName)) return false;
-        long now = System.currentTimeMillis();
-        return now - stamp.timestamp < config.getIpCooldownSeconds() * 1000L;
+    public long ipCooldownLeft(String playerName, InetAddress ip) {
+        return ipUsage.remainingMillis(ip, playerName, ipCooldownMillis(), System.currentTimeMillis());
     }
 
-    public long ipSecondsLeft(String ip) {
-        IpStamp stamp = ipUsage.get(ip);
-        if (stamp == null) return 0;
-        long now = System.currentTimeMillis();
-        long diff = config.getIpCooldownSeconds() * 1000L - (now - stamp.timestamp);
-        return Math.max(0, diff / 1000);
+    public void recordIpUse(String playerName, InetAddress ip) {
+        ipUsage.record(ip, playerName, ipCooldownMillis(), System.currentTimeMillis());
+    }
+
+    public int countUnauthenticated() {
+        int count = 0;
+        for (PlayerSession session : sessions.values()) {
+            if (!session.isAuthenticated()) {
+                count++;
+            }
+        }
+        return count;
     }
 
-    public void recordIpUse(String playerName, String ip) {
-        if (ip == null) return;
-        ipUsage.put(ip, new IpStamp(playerName, System.currentTimeMillis()));
+    public IpCooldownTable getIpCooldowns() {
+        return ipUsage;
     }
 
     public void handleLogin(Player player, String password) {
-        String ip = getPlayerIp(player);
-        if (isIpBlocked(player.getName(), ip)) {
-            long left = ipSecondsLeft(ip);
-            player.sendMessage(messages.format("ip.cooldown", Map.of("seconds_left", String.valueOf(left))));
+        if (!rateLimiter.tryAcquire(playerAddress(player))) {
+            rateLimited.increment();
+            player.sendMessage(messages.component("login.rate_limited"));
+            return;
+        }
+        InetAddress ip = playerAddress(player);
+        long cooldownLeft = ipCooldownLeft(player.getName(), ip);
+        if (cooldownLeft > 0L) {
+            cooldownRefused.increment();
+            player.sendMessage(messages.format("ip.cooldown", "seconds_left", String.valueOf((cooldownLeft + 999L) / 1000L)));
             return;
         }
 
-        storage.findByUUIDAsync(player.getUniqueId()).thenAccept(accountOpt -> {
+        PlayerSession session = sessions.get(player.getUniqueId());
+        if (session == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        storage.findByUUIDAsync(player.getUniqueId()).whenComplete((accountOpt, storageError) -> {
+            if (storageError != null) {
+                runOnPlayer(player, () -> player.sendMessage(messages.component("storage.unavailable")));
+                return;
+            }
             if (accountOpt.isEmpty()) {
-                runOnPlayer(player, () -> player.sendMessage(messages.get("login.not_registered")));
+                runOnPlayer(player, () -> player.sendMessage(messages.component("login.not_registered")));
                 return;
             }
-            if (isAuthenticated(player.getUniqueId())) {
-                runOnPlayer(player, () -> player.sendMessage(messages.get("login.already")));
+            if (session.isAuthenticated()) {
+                runOnPlayer(player, () -> player.sendMessage(messages.component("login.already")));
                 return;
             }
 
-            boolean ok = org.mindrot.jbcrypt.BCrypt.checkpw(password, accountOpt.get().getPasswordHash());
-            if (!ok) {
-                int count = attempts.merge(player.getUniqueId(), 1, Integer::sum);
-                int left = Math.max(0, config.getMaxAttempts() - count);
-                if (count >= config.getMaxAttempts()) {
-                    runOnPlayer(player, () -> player.kick(component(messages.raw("login.max_attempts"))));
-                } else {
-                    runOnPlayer(player, () -> player.sendMessage(messages.format("login.wrong_password", Map.of("attempts_left", String.valueOf(left)))));
+            hashing.verifyAsync(password, accountOpt.get().getPasswordHash()).whenComplete((ok, error) -> {
+                if (error != null) {
+                    runOnPlayer(player, () -> player.sendMessage(messages.component("hashing.busy")));
+                    return;
+                }
+                if (!ok) {
+                    loginFailures.increment();
+                    int count = session.incrementAttempts();
+                    int left = Math.max(0, config.getMaxAttempts() - count);
+                    if (count >= config.getMaxAttempts()) {
+                        attemptKicks.increment();
+                        runOnPlayer(player, () -> player.kick(messages.rawComponent("login.max_attempts")));
+                    } else {
+                        runOnPlayer(player, () -> player.sendMessage(messages.format("login.wrong_password", "attempts_left", String.valueOf(left))));
+                    }
+                    return;
                 }
-                return;
-            }
 
-            storage.updateLastIpAsync(player.getUniqueId(), ip);
-            recordIpUse(player.getName(), ip);
-            runOnPlayer(player, () -> {
-                authenticate(player);
-                player.sendMessage(messages.get("login.success"));
+                storage.updateLastIpAsync(player.getUniqueId(), hostAddress(ip));
+                recordIpUse(player.getName(), ip);
+                rememberSession(player.getUniqueId(), ip);
+                rehashIfOutdated(player.getUniqueId(), password, accountOpt.get().getPasswordHash());
+                runOnPlayer(player, () -> {
+                    authenticate(player);
+                    logins.increment();
+                    loginLatency.recordSince(started);
+                    player.sendMessage(messages.component("login.success"));
+                });
             });
         });
     }
 
     public void handleRegister(Player player, String password) {
-        String ip = getPlayerIp(player);
-        if (isIpBlocked(player.getName(), ip)) {
-            long left = ipSecondsLeft(ip);
-            player.sendMessage(messages.format("ip.cooldown", Map.of("seconds_left", String.valueOf(left))));
+        if (!rateLimiter.tryAcquire(playerAddress(player))) {
+            rateLimited.increment();
+            player.sendMessage(messages.component("login.rate_limited"));
+            return;
+        }
+        InetAddress ip = playerAddress(player);
+        long cooldownLeft = ipCooldownLeft(player.getName(), ip);
+        if (cooldownLeft > 0L) {
+            cooldownRefused.increment();
+            player.sendMessage(messages.format("ip.cooldown", "seconds_left", String.valueOf((cooldownLeft + 999L) / 1000L)));
             return;
         }
 
-        storage.findByUUIDAsync(player.getUniqueId()).thenAccept(accountOpt -> {
+        PlayerSession session = sessions.get(player.getUniqueId());
+        if (session == null) {
+            return;
+        }
+        storage.findByUUIDAsync(player.getUniqueId()).whenComplete((accountOpt, storageError) -> {
+            if (storageError != null) {
+                runOnPlayer(player, () -> player.sendMessage(messages.component("storage.unavailable")));
+                return;
+            }
             if (accountOpt.isPresent()) {
-                runOnPlayer(player, () -> player.sendMessage(messages.get("register.already")));
+                runOnPlayer(player, () -> player.sendMessage(messages.component("register.already")));
                 return;
             }
-            String hash = org.mindrot.jbcrypt.BCrypt.hashpw(password, org.mindrot.jbcrypt.BCrypt.gensalt());
-            Location loc = previousLocations.getOrDefault(player.getUniqueId(), player.getLocation());
-            storage.createAccountAsync(player.getUniqueId(), player.getName(), hash, ip, loc).thenRun(() -> {
-                recordIpUse(player.getName(), ip);
-                runOnPlayer(player, () -> player.sendMessage(messages.get("register.success")));
+            hashing.hashAsync(password).whenComplete((hash, error) -> {
+                if (error != null) {
+                    runOnPlayer(player, () -> player.sendMessage(messages.component("hashing.busy")));
+                    return;
+                }
+                PlayerSession.SavedLocation saved = session.getPreviousLocation();
+                Location loc = saved == null ? null : saved.toLocation(plugin.getServer());
+                if (loc == null) {
+                    loc = player.getLocation();
+                }
+                storage.createAccountAsync(player.getUniqueId(), player.getName(), hash, hostAddress(ip), loc).whenComplete((ignored, writeError) -> {
+                    if (writeError != null) {
+                        runOnPlayer(player, () -> player.sendMessage(messages.component("storage.unavailable")));
+                        return;
+                    }
+                    recordIpUse(player.getName(), ip);
+                    registrations.increment();
+                    runOnPlayer(player, () -> player.sendMessage(messages.component("register.success")));
+                });
             });
         });
     }
 
     public void authenticate(Player player) {
-        UUID uuid = player.getUniqueId();
-        authenticated.add(uuid);
-        attempts.remove(uuid);
-        cancelTask(reminders.remove(uuid));
-        cancelTask(timeouts.remove(uuid));
-        returnPlayer(player);
-        damageProtectionUntil.put(uuid, System.currentTimeMillis() + POST_LOGIN_PROTECTION_MS);
+        PlayerSession session = sessions.get(player.getUniqueId());
+        if (session == null) {
+            return;
+        }
+        session.authenticate(System.currentTimeMillis() + POST_LOGIN_PROTECTION_MS);
+        cancelTimer(session.replaceReminder(null));
+        cancelTimer(session.replaceTimeout(null));
+        returnPlayer(player, session);
+        releaseGuardAfterProtection(player, session);
+        startAutosave(player, session);
+    }
+
+    private boolean canResume(Player player, PreLogin resolved) {
+        return config.getSessionSettings().isEnabled() && resolved.account.isPresent()
+                && sessionTokens.verify(resolved.trusted, player.getUniqueId(), hostAddress(playerAddress(player)), System.currentTimeMillis());
+    }
+
+    private void resume(Player player, PlayerSession session) {
+        resumed.increment();
+        session.authenticate(System.currentTimeMillis() + POST_LOGIN_PROTECTION_MS);
+        recordIpUse(player.getName(), playerAddress(player));
+        releaseGuardAfterProtection(player, session);
+        startAutosave(player, session);
+        player.sendMessage(messages.component("login.resumed"));
+    }
+
+    private void rehashIfOutdated(UUID uuid, String password, String storedHash) {
+        if (!hashing.needsRehash(storedHash)) {
+            return;
+        }
+        hashing.hashAsync(password).thenAccept(hash -> storage.rehashPasswordAsync(uuid, storedHash, hash));
+    }
+
+    private void rememberSession(UUID uuid, InetAddress ip) {
+        AuthConfig.SessionSettings settings = config.getSessionSettings();
+        if (!settings.isEnabled() || ip == null) {
+            return;
+        }
+        storage.saveSessionAsync(sessionTokens.issue(uuid, hostAddress(ip), System.currentTimeMillis() + settings.getLifetimeMillis()));
     }
 
     public void sendPrompt(Player player) {
-        storage.findByUUIDAsync(player.getUniqueId()).thenAccept(opt ->
+        sendPrompt(player, storage.findByUUIDAsync(player.getUniqueId()));
+    }
+
+    private void sendPrompt(Player player, CompletableFuture<Optional<Account>> account) {
+        account.whenComplete((opt, error) ->
                 runOnPlayer(player, () -> {
-                    if (opt.isEmpty()) {
-                        player.sendMessage(messages.get("register.prompt"));
+                    if (error != null) {
+                        player.sendMessage(messages.component("storage.unavailable"));
+                        sendTitle(player);
                     } else {
-                        player.sendMessage(messages.get("login.prompt"));
+                        sendPrompt(player, opt);
                     }
-                    sendTitle(player);
                 })
         );
     }
 
+    private void sendPrompt(Player player, Optional<Account> account) {
+        player.sendMessage(messages.component(account.isEmpty() ? "register.prompt" : "login.prompt"));
+        sendTitle(player);
+    }
+
     private void sendTitle(Player player) {
         AuthConfig.TitleSettings t = config.getTitleSettings();
         if (!t.isEnabled()) return;
-        player.sendTitle(color(t.getTitle()), color(t.getSubtitle()), t.getFadeIn(), t.getStay(), t.getFadeOut());
+        player.showTitle(t.getCompiledTitle());
     }
 
-    private void startReminder(Player player) {
+    private void startReminder(Player player, PlayerSession session) {
         long period = config.getReminderSeconds() * 20L;
         long initialDelay = Math.max(1L, period);
-        ScheduledTask task = player.getScheduler().runAtFixedRate(plugin, scheduledTask -> {
-            if (isAuthenticated(player.getUniqueId())) {
-                scheduledTask.cancel();
-                return;
+        TimingWheel.Timer timer = loginTimers.schedule(initialDelay, period, () -> runOnPlayer(player, () -> {
+            if (!session.isAuthenticated()) {
+                sendTitle(player);
             }
-            sendTitle(player);
-        }, null, initialDelay, period);
-        reminders.put(player.getUniqueId(), task);
+        }));
+        cancelTimer(session.replaceReminder(timer));
     }
 
-    private void startTimeout(Player player) {
+    private void startTimeout(Player player, PlayerSession session) {
         long delay = config.getTimeoutSeconds() * 20L;
-        ScheduledTask task = player.getScheduler().runDelayed(plugin, scheduledTask -> {
-            if (!isAuthenticated(player.getUniqueId())) {
-                player.kick(component(messages.raw("timeout.kick")));
+        TimingWheel.Timer timer = loginTimers.schedule(delay, 0L, () -> runOnPlayer(player, () -> {
+            if (!session.isAuthenticated()) {
+                timeouts.increment();
+                player.kick(messages.rawComponent("timeout.kick"));
+            }
+        }));
+        cancelTimer(session.replaceTimeout(timer));
+    }
+
+    private void releaseGuardAfterProtection(Player player, PlayerSession session) {
+        UUID uuid = player.getUniqueId();
+        Runnable release = () -> {
+            if (session.isAuthenticated() && sessions.get(uuid) == session) {
+                protectionGate.release(uuid);
+            }
+        };
+        long delay = POST_LOGIN_PROTECTION_MS / 50L + 1L;
+        ScheduledTask task = player.getScheduler().runDelayed(plugin, scheduledTask -> release.run(), release, delay);
+        if (task == null) {
+            release.run();
+        }
+    }
+
+    private void startAutosave(Player player, PlayerSession session) {
+        int seconds = config.getAutosaveSeconds();
+        if (seconds <= 0) {
+            return;
+        }
+        if (config.getTeleportSettings().isReturnToPrevious() && session.getPreviousLocation() != null) {
+            session.setLastKnownLocation(session.getPreviousLocation());
+        }
+        long period = seconds * 20L;
+        long initialDelay = 1L + Math.floorMod(player.getUniqueId().hashCode(), period);
+        ScheduledTask task = player.getScheduler().runAtFixedRate(plugin, scheduledTask -> {
+            if (!session.isAuthenticated()) {
+                return;
             }
-        }, null, delay);
-        timeouts.put(player.getUniqueId(), task);
+            Location location = player.getLocation();
+            session.setLastKnownLocation(PlayerSession.SavedLocation.of(location));
+            storage.updateLastLocationAsync(session.getUuid(), location);
+        }, null, initialDelay, period);
+        cancelTask(session.replaceAutosave(task));
     }
 
-    private void teleportToLobby(Player player) {
+    private void teleportToLobby(Player player, PlayerSession session) {
         if (!config.getTeleportSettings().isEnabled()) {
             return;
         }
@@ -216,7 +461,7 @@ public class AuthManager {
                 target = player.getWorld().getSpawnLocation();
                 break;
             case "previous":
-                target = previousLocations.get(player.getUniqueId());
+                target = toLocation(session.getPreviousLocation());
                 break;
             default:
                 target = player.getWorld().getSpawnLocation();
@@ -227,9 +472,9 @@ public class AuthManager {
         }
     }
 
-    private void returnPlayer(Player player) {
+    private void returnPlayer(Player player, PlayerSession session) {
         boolean returnToPrevious = config.getTeleportSettings().isReturnToPrevious();
-        Location back = returnToPrevious ? previousLocations.get(player.getUniqueId()) : null;
+        Location back = returnToPrevious ? toLocation(session.getPreviousLocation()) : null;
         if (back != null) {
             teleportPlayerLater(player, back, 0L);
             return;
@@ -239,59 +484,65 @@ public class AuthManager {
         }
     }
 
+    private void cancelTasks(PlayerSession session) {
+        if (session == null) {
+            return;
+        }
+        cancelTimer(session.replaceReminder(null));
+        cancelTimer(session.replaceTimeout(null));
+        cancelTask(session.replaceAutosave(null));
+    }
+
+    private void cancelTimer(TimingWheel.Timer timer) {
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    private Location toLocation(PlayerSession.SavedLocation saved) {
+        return saved == null ? null : saved.toLocation(plugin.getServer());
+    }
+
     private void cancelTask(ScheduledTask task) {
         if (task != null && !task.isCancelled()) {
             task.cancel();
         }
     }
 
-    private String getPlayerIp(Player player) {
-        InetSocketAddress addr = player.getAddress();
-        if (addr == null || addr.getAddress() == null) return null;
-        return addr.getAddress().getHostAddress();
+    private static String hostAddress(InetAddress address) {
+        return address == null ? null : address.getHostAddress();
     }
 
-    public boolean isAllowedCommand(String command) {
-        String lower = command.toLowerCase(Locale.ROOT);
-        for (String allowed : config.getProtectionSettings().getAllowedCommands()) {
-            if (lower.startsWith("/")) {
-                if (lower.startsWith("/" + allowed.toLowerCase(Locale.ROOT))) {
-                    return true;
-                }
-            } else if (lower.startsWith(allowed.toLowerCase(Locale.ROOT))) {
-                return true;
-            }
-        }
-        return false;
+    private InetAddress playerAddress(Player player) {
+        InetSocketAddress addr = player.getAddress();
+        return addr == null ? null : addr.getAddress();
     }
 
-    public boolean hasPostLoginProtection(UUID uuid) {
-        Long until = damageProtectionUntil.get(uuid);
-        if (until == null) {
-            return false;
-        }
-        if (System.currentTimeMillis() > until) {
-            damageProtectionUntil.remove(uuid);
-            return false;
-        }
-        return true;
+    public boolean isAllowedCommand(String message) {
+        return config.getProtectionSettings().getAllowedCommandMatcher().matches(message);
     }
 
-    private String color(String text) {
-        return org.bukkit.ChatColor.translateAlternateColorCodes('&', text == null ? "" : text);
+    public boolean hasPostLoginProtection(UUID uuid) {
+        PlayerSession session = sessions.get(uuid);
+        return session != null && session.isProtected(System.currentTimeMillis());
     }
 
-    private Component component(String message) {
-        return LegacyComponentSerializer.legacyAmpersand().deserialize(message == null ? "" : message);
+    private void expire() {
+        long now = System.currentTimeMillis();
+        ipUsage.expire(ipCooldownMillis(), now);
+        if (!preLogins.isEmpty()) {
+            preLogins.values().removeIf(p -> now - p.resolvedAt > PRE_LOGIN_TTL_MS);
+        }
     }
 
-    private void cleanupIpUsage() {
-        long cutoff = System.currentTimeMillis() - config.getIpCooldownSeconds() * 1000L;
-        ipUsage.entrySet().removeIf(e -> e.getValue().timestamp < cutoff);
+    private long ipCooldownMillis() {
+        return config.getIpCooldownSeconds() * 1000L;
     }
 
     private void runOnPlayer(Player player, Runnable runnable) {
+        long scheduled = System.nanoTime();
         player.getScheduler().run(plugin, scheduledTask -> {
+            playerHop.recordSince(scheduled);
             if (!player.isOnline()) {
                 return;
             }
@@ -300,16 +551,26 @@ public class AuthManager {
     }
 
     public void saveOnlineLocationsNow() {
-        plugin.getServer().getOnlinePlayers().forEach(p -> {
-            storage.updateLastLocation(p.getUniqueId(), p.getLocation());
-        });
+        Map<UUID, Location> snapshot = new HashMap<>();
+        for (Player p : plugin.getServer().getOnlinePlayers()) {
+            UUID uuid = p.getUniqueId();
+            PlayerSession session = sessions.get(uuid);
+            if (session == null || !session.isAuthenticated()) {
+                continue;
+            }
+            Location location = plugin.getServer().isOwnedByCurrentRegion(p) ? p.getLocation() : toLocation(session.getLastKnownLocation());
+            if (location != null) {
+                snapshot.put(uuid, location);
+            }
+        }
+        storage.saveLastLocations(snapshot);
     }
 
-    private void loadLastLocation(Player player) {
-        storage.findByUUIDAsync(player.getUniqueId()).thenAccept(opt -> opt.ifPresent(account -> {
-            Location loc = accountToLocation(account);
+    private void loadLastLocation(Player player, PlayerSession session, CompletableFuture<Optional<Account>> account) {
+        account.thenAccept(opt -> opt.ifPresent(stored -> {
+            Location loc = accountToLocation(stored);
             if (loc != null) {
-                previousLocations.put(player.getUniqueId(), loc.clone());
+                session.setPreviousLocation(loc);
                 if (config.getTeleportSettings().isEnabled() &&
                         "previous".equalsIgnoreCase(config.getTeleportSettings().getMode())) {
                     teleportPlayerLater(player, loc, 1L);
@@ -347,25 +608,25 @@ public class AuthManager {
         return new Location(world, account.getLastX(), account.getLastY(), account.getLastZ(), yaw, pitch);
     }
 
-    private static final class IpStamp {
-        private final String playerName;
-        private final long timestamp;
+    private static final class PreLogin {
+        private final Optional<Account> account;
+        private final TrustedSession trusted;
+        private final long resolvedAt;
 
-        private IpStamp(String playerName, long timestamp) {
-            this.playerName = playerName;
-            this.timestamp = timestamp;
+        private PreLogin(Optional<Account> account, TrustedSession trusted, long resolvedAt) {
+            this.account = account;
+            this.trusted = trusted;
+            this.resolvedAt = resolvedAt;
         }
     }
 
     public void shutdown() {
-        reminders.values().forEach(this::cancelTask);
-        timeouts.values().forEach(this::cancelTask);
-        reminders.clear();
-        timeouts.clear();
-        authenticated.clear();
-        attempts.clear();
-        previousLocations.clear();
+        sessions.values().forEach(this::cancelTasks);
+        sessions.clear();
+        loginTimers.clear();
+        cancelTask(expiryTask);
+        preLogins.clear();
         ipUsage.clear();
-        damageProtectionUntil.clear();
+        protectionGate.clear();
     }
 }
@@ -0,0 +1,122 @@
+package com.authreg.user;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+
+import java.util.UUID;
+
+public final class PlayerSession {
+    private final UUID uuid;
+    private volatile boolean authenticated;
+    private volatile long protectedUntil;
+    private volatile boolean resumable = true;
+    private int attempts;
+    private volatile SavedLocation previousLocation;
+    private volatile SavedLocation lastKnownLocation;
+    private TimingWheel.Timer reminder;
+    private TimingWheel.Timer timeout;
+    private ScheduledTask autosave;
+
+    PlayerSession(UUID uuid) {
+        this.uuid = uuid;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    public boolean isProtected(long now) {
+        return now <= protectedUntil;
+    }
+
+    void authenticate(long protectedUntil) {
+        this.protectedUntil = protectedUntil;
+        this.authenticated = true;
+        synchronized (this) {
+            attempts = 0;
+        }
+    }
+
+    boolean isResumable() {
+        return resumable;
+    }
+
+    void revokeResume() {
+        this.resumable = false;
+    }
+
+    synchronized int incrementAttempts() {
+        return ++attempts;
+    }
+
+    SavedLocation getPreviousLocation() {
+        return previousLocation;
+    }
+
+    void setPreviousLocation(Location location) {
+        this.previousLocation = SavedLocation.of(location);
+    }
+
+    SavedLocation getLastKnownLocation() {
+        return lastKnownLocation;
+    }
+
+    void setLastKnownLocation(SavedLocation location) {
+        this.lastKnownLocation = location;
+    }
+
+    synchronized TimingWheel.Timer replaceReminder(TimingWheel.Timer timer) {
+        TimingWheel.Timer previous = reminder;
+        reminder = timer;
+        return previous;
+    }
+
+    synchronized TimingWheel.Timer replaceTimeout(TimingWheel.Timer timer) {
+        TimingWheel.Timer previous = timeout;
+        timeout = timer;
+        return previous;
+    }
+
+    synchronized ScheduledTask replaceAutosave(ScheduledTask task) {
+        ScheduledTask previous = autosave;
+        autosave = task;
+        return previous;
+    }
+
+    static final class SavedLocation {
+        private final String world;
+        private final double x;
+        private final double y;
+        private final double z;
+        private final float yaw;
+        private final float pitch;
+
+        SavedLocation(String world, double x, double y, double z, float yaw, float pitch) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.yaw = yaw;
+            this.pitch = pitch;
+        }
+
+        static SavedLocation of(Location location) {
+            if (location == null || location.getWorld() == null) {
+                return null;
+            }
+            return new SavedLocation(location.getWorld().getName(), location.getX(), location.getY(), location.getZ(),
+                    location.getYaw(), location.getPitch());
+        }
+
+        Location toLocation(Server server) {
+            World loaded = server.getWorld(world);
+            return loaded == null ? null : new Location(loaded, x, y, z, yaw, pitch);
+        }
+    }
+}
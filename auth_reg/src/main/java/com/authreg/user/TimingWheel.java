@@ -0,0 +1,129 @@
+package com.authreg.user;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class TimingWheel {
+    private static final int SLOTS = 256;
+    private static final int MASK = SLOTS - 1;
+
+    private final Plugin plugin;
+    private final List<List<Timer>> wheel = new ArrayList<>(SLOTS);
+    private long currentTick;
+    private int pending;
+    private ScheduledTask ticker;
+
+    TimingWheel(Plugin plugin) {
+        this.plugin = plugin;
+        for (int i = 0; i < SLOTS; i++) {
+            wheel.add(new ArrayList<>());
+        }
+    }
+
+    Timer schedule(long delayTicks, long periodTicks, Runnable action) {
+        Timer timer = new Timer(action, Math.max(0L, periodTicks));
+        synchronized (this) {
+            insert(timer, Math.max(1L, delayTicks));
+            pending++;
+            if (ticker == null) {
+                ticker = plugin.getServer().getGlobalRegionScheduler().runAtFixedRate(plugin, task -> tick(), 1L, 1L);
+            }
+        }
+        return timer;
+    }
+
+    synchronized int size() {
+        return pending;
+    }
+
+    synchronized void clear() {
+        for (List<Timer> slot : wheel) {
+            for (Timer timer : slot) {
+                timer.cancelled = true;
+            }
+            slot.clear();
+        }
+        pending = 0;
+        stopTicker();
+    }
+
+    private void tick() {
+        List<Timer> due = null;
+        synchronized (this) {
+            currentTick++;
+            List<Timer> slot = wheel.get((int) (currentTick & MASK));
+            int i = 0;
+            while (i < slot.size()) {
+                Timer timer = slot.get(i);
+                if (timer.cancelled) {
+                    removeAt(slot, i);
+                    pending--;
+                } else if (timer.deadline > currentTick) {
+                    i++;
+                } else {
+                    removeAt(slot, i);
+                    if (due == null) {
+                        due = new ArrayList<>();
+                    }
+                    due.add(timer);
+                    if (timer.period > 0L) {
+                        insert(timer, timer.period);
+                    } else {
+                        pending--;
+                    }
+                }
+            }
+            if (pending == 0) {
+                stopTicker();
+            }
+        }
+        if (due != null) {
+            for (Timer timer : due) {
+                if (!timer.cancelled) {
+                    timer.action.run();
+                }
+            }
+        }
+    }
+
+    private void insert(Timer timer, long delayTicks) {
+        timer.deadline = currentTick + delayTicks;
+        wheel.get((int) (timer.deadline & MASK)).add(timer);
+    }
+
+    private void stopTicker() {
+        if (ticker != null) {
+            ticker.cancel();
+            ticker = null;
+        }
+    }
+
+    private static void removeAt(List<Timer> slot, int index) {
+        int last = slot.size() - 1;
+        slot.set(index, slot.get(last));
+        slot.remove(last);
+    }
+
+    static final class Timer {
+        private final Runnable action;
+        private final long period;
+        private long deadline;
+        private volatile boolean cancelled;
+
+        private Timer(Runnable action, long period) {
+            this.action = action;
+            this.period = period;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
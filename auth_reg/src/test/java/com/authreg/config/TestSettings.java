@@ -0,0 +1,14 @@
+package com.authreg.config;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.StringReader;
+
+public final class TestSettings {
+    private TestSettings() {
+    }
+
+    public static AuthConfig.DatabaseSettings database(String yaml) {
+        return new AuthConfig.DatabaseSettings(YamlConfiguration.loadConfiguration(new StringReader(yaml)));
+    }
+}
@@ -0,0 +1,117 @@
+package com.authreg.listener;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WarnThrottleTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void oneWarningPerIntervalUnderContention() throws Exception {
+        WarnThrottle throttle = new WarnThrottle();
+        UUID[] players = {UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()};
+        AtomicIntegerArray acquired = new AtomicIntegerArray(players.length);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 20_000; i++) {
+                        int player = i % players.length;
+                        if (throttle.tryAcquire(players[player], TimeUnit.HOURS.toMillis(1))) {
+                            acquired.incrementAndGet(player);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        for (int i = 0; i < players.length; i++) {
+            assertEquals(1, acquired.get(i));
+        }
+        assertEquals(players.length, throttle.size());
+    }
+
+    @Test
+    void intervalBoundsWarningsOverTime() throws Exception {
+        WarnThrottle throttle = new WarnThrottle();
+        UUID uuid = UUID.randomUUID();
+        long interval = 50L;
+        long runMillis = 500L;
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long began;
+        long ended;
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    long deadline = System.currentTimeMillis() + runMillis;
+                    while (System.currentTimeMillis() < deadline) {
+                        if (throttle.tryAcquire(uuid, interval)) {
+                            acquired.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            began = System.currentTimeMillis();
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+            ended = System.currentTimeMillis();
+        } finally {
+            pool.shutdownNow();
+        }
+        long maxAllowed = (ended - began) / interval + 1;
+        assertTrue(acquired.get() >= 2, "expected more than one interval to elapse, got " + acquired.get());
+        assertTrue(acquired.get() <= maxAllowed, acquired.get() + " warnings in " + (ended - began) + " ms");
+    }
+
+    @Test
+    void forgetResetsThePlayer() {
+        WarnThrottle throttle = new WarnThrottle();
+        UUID uuid = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        long interval = TimeUnit.HOURS.toMillis(1);
+
+        assertTrue(throttle.tryAcquire(uuid, interval));
+        assertTrue(throttle.tryAcquire(other, interval));
+        assertFalse(throttle.tryAcquire(uuid, interval));
+
+        throttle.forget(uuid);
+        assertEquals(1, throttle.size());
+        assertFalse(throttle.tryAcquire(other, interval));
+        assertTrue(throttle.tryAcquire(uuid, interval));
+        assertFalse(throttle.tryAcquire(uuid, interval));
+
+        throttle.clear();
+        assertEquals(0, throttle.size());
+        assertTrue(throttle.tryAcquire(other, interval));
+    }
+}
@@ -0,0 +1,69 @@
+package com.authreg.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IpCooldownTableTest {
+    private static final long COOLDOWN = TimeUnit.SECONDS.toMillis(120);
+
+    @Test
+    void everyEntryExpires() throws UnknownHostException {
+        IpCooldownTable table = new IpCooldownTable(65536);
+        long now = 1_700_000_000_123L;
+        for (int i = 0; i < 1000; i++) {
+            table.record(ipv4(i), "Player" + i, COOLDOWN, now + i * 37L);
+        }
+        assertEquals(1000, table.size());
+
+        for (int second = 1; second <= 600; second++) {
+            table.expire(COOLDOWN, now + second * 1000L);
+        }
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void renewedEntryOutlivesItsFirstBucket() throws UnknownHostException {
+        IpCooldownTable table = new IpCooldownTable(65536);
+        InetAddress address = ipv4(1);
+        long now = 1_700_000_000_000L;
+        table.record(address, "Steve", COOLDOWN, now);
+        table.record(address, "Steve", COOLDOWN, now + 60_000L);
+
+        for (long t = now; t <= now + 150_000L; t += 1000L) {
+            table.expire(COOLDOWN, t);
+        }
+        assertEquals(1, table.size());
+        assertTrue(table.remainingMillis(address, "Alex", COOLDOWN, now + 150_000L) > 0L);
+
+        for (long t = now + 150_000L; t <= now + 300_000L; t += 1000L) {
+            table.expire(COOLDOWN, t);
+        }
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void fullTableEvictsOldestEntry() throws UnknownHostException {
+        IpCooldownTable table = new IpCooldownTable(64);
+        long now = 1_700_000_000_000L;
+        for (int i = 0; i < 64; i++) {
+            table.record(ipv4(i), "Player" + i, COOLDOWN, now + i * 100L);
+        }
+        table.record(ipv4(64), "Player64", COOLDOWN, now + 6400L);
+
+        assertEquals(64, table.size());
+        assertEquals(1L, table.evicted());
+        assertEquals(0L, table.remainingMillis(ipv4(0), "Other", COOLDOWN, now + 6400L));
+        assertTrue(table.remainingMillis(ipv4(1), "Other", COOLDOWN, now + 6400L) > 0L);
+        assertTrue(table.remainingMillis(ipv4(64), "Other", COOLDOWN, now + 6400L) > 0L);
+    }
+
+    private static InetAddress ipv4(int i) throws UnknownHostException {
+        return InetAddress.getByAddress(new byte[]{10, (byte) (i >>> 16), (byte) (i >>> 8), (byte) i});
+    }
+}
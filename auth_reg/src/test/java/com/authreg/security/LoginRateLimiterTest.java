@@ -0,0 +1,83 @@
+package com.authreg.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginRateLimiterTest {
+    @Test
+    void connectionsDoNotSpendLoginAttempts() throws UnknownHostException {
+        LoginRateLimiter limiter = new LoginRateLimiter(true, 1, 2, 0, 1, 1, 3, 1024);
+        InetAddress address = InetAddress.getByName("192.0.2.10");
+
+        assertTrue(limiter.tryAcquireConnection(address));
+        assertTrue(limiter.tryAcquireConnection(address));
+        assertTrue(limiter.tryAcquireConnection(address));
+        assertFalse(limiter.tryAcquireConnection(address));
+
+        assertTrue(limiter.tryAcquire(address));
+        assertTrue(limiter.tryAcquire(address));
+        assertFalse(limiter.tryAcquire(address));
+        assertFalse(limiter.tryAcquireConnection(address));
+    }
+
+    @Test
+    void rejectedAddressDoesNotDrainIpv6Prefix() throws UnknownHostException {
+        LoginRateLimiter limiter = new LoginRateLimiter(true, 1, 1, 1, 2, 0, 1, 1024);
+        InetAddress first = InetAddress.getByName("2001:db8::1");
+        InetAddress second = InetAddress.getByName("2001:db8::2");
+        InetAddress third = InetAddress.getByName("2001:db8::3");
+        InetAddress elsewhere = InetAddress.getByName("2001:db8:1::1");
+
+        assertTrue(limiter.tryAcquire(first));
+        for (int i = 0; i < 10; i++) {
+            assertFalse(limiter.tryAcquire(first));
+        }
+        assertTrue(limiter.tryAcquire(second));
+        assertFalse(limiter.tryAcquire(third));
+        assertTrue(limiter.tryAcquire(elsewhere));
+    }
+
+    @Test
+    void distinctAddressesInOne64ShareThePrefixBudget() throws UnknownHostException {
+        LoginRateLimiter limiter = new LoginRateLimiter(true, 1, 5, 1, 4, 1, 4, 1024);
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(limiter.tryAcquire(InetAddress.getByName("2001:db8:0:1::" + Integer.toHexString(i))));
+        }
+        assertFalse(limiter.tryAcquire(InetAddress.getByName("2001:db8:0:1:ffff:ffff:ffff:ffff")));
+        assertFalse(limiter.tryAcquire(InetAddress.getByName("2001:db8:0:1::1")));
+
+        assertTrue(limiter.tryAcquire(InetAddress.getByName("2001:db8:0:2::1")));
+        assertTrue(limiter.tryAcquireConnection(InetAddress.getByName("2001:db8:0:1::5")));
+    }
+
+    @Test
+    void evictedSlotStartsWithAFullBudget() throws UnknownHostException {
+        LoginRateLimiter limiter = new LoginRateLimiter(true, 1, 2, 0, 1, 0, 1, 0);
+        for (int i = 0; i < limiter.getCapacity() * 4; i++) {
+            limiter.tryAcquire(InetAddress.getByAddress(new byte[]{10, (byte) (i >>> 16), (byte) (i >>> 8), (byte) i}));
+        }
+        assertTrue(limiter.getEvicted() > 0L);
+
+        InetAddress fresh = InetAddress.getByName("192.0.2.200");
+        assertTrue(limiter.tryAcquire(fresh));
+        assertTrue(limiter.tryAcquire(fresh));
+        assertFalse(limiter.tryAcquire(fresh));
+    }
+
+    @Test
+    void disabledLimiterAllowsEverything() throws UnknownHostException {
+        LoginRateLimiter limiter = new LoginRateLimiter(false, 1, 1, 1, 1, 1, 1, 1024);
+        InetAddress address = InetAddress.getByName("192.0.2.10");
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire(address));
+            assertTrue(limiter.tryAcquireConnection(address));
+        }
+        assertEquals(0L, limiter.getRejected());
+    }
+}
@@ -0,0 +1,41 @@
+package com.authreg.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+    private static final String PASSWORD = "correct-horse-42";
+
+    @Test
+    void bcryptRehashesOnlyWeakerCost() {
+        String cost10 = new BCryptHasher(10).hash(PASSWORD);
+        String cost11 = new BCryptHasher(11).hash(PASSWORD);
+
+        assertTrue(new BCryptHasher(11).needsRehash(cost10));
+        assertFalse(new BCryptHasher(11).needsRehash(cost11));
+        assertFalse(new BCryptHasher(10).needsRehash(cost11));
+        assertTrue(new BCryptHasher(10).verify(PASSWORD, cost11));
+    }
+
+    @Test
+    void argon2RehashesOnlyWeakerParameters() {
+        String weak = new Argon2Hasher(1024, 1, 1).hash(PASSWORD);
+        String strong = new Argon2Hasher(2048, 2, 1).hash(PASSWORD);
+
+        assertTrue(new Argon2Hasher(1024, 2, 1).needsRehash(weak));
+        assertTrue(new Argon2Hasher(2048, 1, 1).needsRehash(weak));
+        assertFalse(new Argon2Hasher(1024, 1, 1).needsRehash(weak));
+        assertFalse(new Argon2Hasher(1024, 1, 1).needsRehash(strong));
+        assertFalse(new Argon2Hasher(2048, 2, 2).needsRehash(strong));
+        assertTrue(new Argon2Hasher(1024, 1, 1).needsRehash("$argon2id$v=19$broken"));
+    }
+
+    @Test
+    void calibrationNeverGoesBelowFloor() {
+        assertEquals(11, HashCalibrator.bcrypt(11, 0L).cost());
+        assertEquals(2, HashCalibrator.argon2(1024, 2, 1, 0L).iterations());
+    }
+}
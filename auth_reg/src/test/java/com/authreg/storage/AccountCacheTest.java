@@ -0,0 +1,76 @@
+package com.authreg.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountCacheTest {
+    @Test
+    void missIsCachedForLocalBackend() {
+        AccountCache cache = new AccountCache();
+        cache.configure(100, 60_000L, true);
+        AtomicInteger loads = new AtomicInteger();
+        UUID uuid = UUID.randomUUID();
+
+        assertTrue(cache.get(uuid, key -> miss(loads)).join().isEmpty());
+        assertTrue(cache.get(uuid, key -> miss(loads)).join().isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void missIsNotCachedForSharedBackend() {
+        AccountCache cache = new AccountCache();
+        cache.configure(100, 60_000L, false);
+        AtomicInteger loads = new AtomicInteger();
+        UUID uuid = UUID.randomUUID();
+
+        assertTrue(cache.get(uuid, key -> miss(loads)).join().isEmpty());
+        assertTrue(cache.get(uuid, key -> miss(loads)).join().isEmpty());
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() {
+        AccountCache cache = new AccountCache();
+        cache.configure(100, 60_000L, false);
+        AtomicInteger loads = new AtomicInteger();
+        UUID uuid = UUID.randomUUID();
+        CompletableFuture<Optional<Account>> pending = new CompletableFuture<>();
+
+        CompletableFuture<Optional<Account>> first = cache.get(uuid, key -> {
+            loads.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<Optional<Account>> second = cache.get(uuid, key -> miss(loads));
+        assertSame(first, second);
+        pending.complete(Optional.empty());
+        assertTrue(second.join().isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void expiredEntryIsReloaded() throws InterruptedException {
+        AccountCache cache = new AccountCache();
+        cache.configure(100, 1L, true);
+        AtomicInteger loads = new AtomicInteger();
+        UUID uuid = UUID.randomUUID();
+
+        cache.get(uuid, key -> miss(loads)).join();
+        Thread.sleep(5L);
+        cache.get(uuid, key -> miss(loads)).join();
+        assertEquals(2, loads.get());
+    }
+
+    private static CompletableFuture<Optional<Account>> miss(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return CompletableFuture.completedFuture(Optional.empty());
+    }
+}
@@ -0,0 +1,174 @@
+package com.authreg.storage;
+
+import com.authreg.config.TestSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlPoolBackendTest {
+    private static final String HASH = "$2a$10$abcdefghijklmnopqrstuuTyr3W4i0Dr3EzmNzKyXh5wDxpLNhJ3W";
+
+    private SqlPoolBackend backend;
+
+    @BeforeEach
+    void open() throws SQLException {
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1";
+        backend = new SqlPoolBackend(SqlPoolBackend.Dialect.MARIADB,
+                TestSettings.database("database:\n  type: mariadb\n  sql:\n    table-prefix: t_\n    pool-size: 2\n"),
+                Logger.getLogger("SqlPoolBackendTest"), "org.h2.Driver", url);
+        assertEquals(2, backend.open());
+    }
+
+    @AfterEach
+    void close() {
+        backend.close();
+    }
+
+    @Test
+    void reopenKeepsSchemaVersion() throws SQLException {
+        assertEquals(2, backend.open());
+    }
+
+    @Test
+    void insertAndFind() throws SQLException {
+        Account account = account("Steve", "world");
+        backend.insertAccount(account);
+
+        Account byUuid = backend.findByUUID(account.getUuid()).orElseThrow();
+        assertEquals("Steve", byUuid.getName());
+        assertEquals(HASH, byUuid.getPasswordHash());
+        assertEquals("world", byUuid.getLastWorld());
+        assertEquals(1.5, byUuid.getLastX());
+        assertEquals(90.0f, byUuid.getLastYaw());
+        assertEquals(account.getCreatedAt(), byUuid.getCreatedAt());
+
+        assertEquals(account.getUuid(), backend.findByName("steve").orElseThrow().getUuid());
+        assertTrue(backend.findByUUID(UUID.randomUUID()).isEmpty());
+        assertTrue(backend.findByName("Alex").isEmpty());
+    }
+
+    @Test
+    void duplicateNameIsRejected() throws SQLException {
+        backend.insertAccount(account("Steve", null));
+        assertThrows(SQLException.class, () -> backend.insertAccount(account("STEVE", null)));
+    }
+
+    @Test
+    void accountWithoutLocation() throws SQLException {
+        Account account = account("Steve", null);
+        backend.insertAccount(account);
+        Account stored = backend.findByUUID(account.getUuid()).orElseThrow();
+        assertNull(stored.getLastWorld());
+        assertNull(stored.getLastX());
+        assertNull(stored.getLastPitch());
+    }
+
+    @Test
+    void updatePasswordDropsSession() throws SQLException {
+        Account account = account("Steve", null);
+        backend.insertAccount(account);
+        backend.saveSession(new TrustedSession(account.getUuid(), "10.0.0.1", new byte[]{1, 2, 3}, Long.MAX_VALUE));
+
+        backend.updatePassword(account.getUuid(), "new-hash", 5000L);
+
+        Account stored = backend.findByUUID(account.getUuid()).orElseThrow();
+        assertEquals("new-hash", stored.getPasswordHash());
+        assertEquals(5000L, stored.getUpdatedAt());
+        assertTrue(backend.findSession(account.getUuid()).isEmpty());
+    }
+
+    @Test
+    void replacePasswordHashComparesExpected() throws SQLException {
+        Account account = account("Steve", null);
+        backend.insertAccount(account);
+
+        assertFalse(backend.replacePasswordHash(account.getUuid(), "stale", "rehashed", 5000L));
+        assertTrue(backend.replacePasswordHash(account.getUuid(), HASH, "rehashed", 5000L));
+        assertEquals("rehashed", backend.findByUUID(account.getUuid()).orElseThrow().getPasswordHash());
+    }
+
+    @Test
+    void sessionUpsertAndDelete() throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        backend.saveSession(new TrustedSession(uuid, "10.0.0.1", new byte[]{1}, 1000L));
+        backend.saveSession(new TrustedSession(uuid, "10.0.0.2", new byte[]{2, 2}, 2000L));
+
+        TrustedSession session = backend.findSession(uuid).orElseThrow();
+        assertEquals("10.0.0.2", session.getIp());
+        assertArrayEquals(new byte[]{2, 2}, session.getToken());
+        assertEquals(2000L, session.getExpiresAt());
+
+        backend.deleteSession(uuid);
+        assertTrue(backend.findSession(uuid).isEmpty());
+    }
+
+    @Test
+    void applyWritesUpdatesLocationAndIp() throws SQLException {
+        Account first = account("Steve", "world");
+        Account second = account("Alex", null);
+        backend.insertAccount(first);
+        backend.insertAccount(second);
+
+        WriteBehindBuffer buffer = new WriteBehindBuffer();
+        buffer.location(first.getUuid(), "world_nether", 10.0, 20.0, 30.0, 45.0f, -10.0f, 7000L);
+        buffer.ip(first.getUuid(), "10.0.0.9", 7000L);
+        buffer.ip(second.getUuid(), "10.0.0.8", 7000L);
+        backend.applyWrites(buffer.drain());
+
+        Account movedFirst = backend.findByUUID(first.getUuid()).orElseThrow();
+        assertEquals("world_nether", movedFirst.getLastWorld());
+        assertEquals(20.0, movedFirst.getLastY());
+        assertEquals(-10.0f, movedFirst.getLastPitch());
+        assertEquals("10.0.0.9", movedFirst.getLastIp());
+        assertEquals(7000L, movedFirst.getUpdatedAt());
+        Account movedSecond = backend.findByUUID(second.getUuid()).orElseThrow();
+        assertEquals("10.0.0.8", movedSecond.getLastIp());
+        assertNull(movedSecond.getLastWorld());
+    }
+
+    @Test
+    void importSkipsExistingAndExportReturnsAll() throws SQLException {
+        Account existing = account("Steve", "world");
+        backend.insertAccount(existing);
+
+        List<Account> batch = new ArrayList<>();
+        batch.add(existing);
+        batch.add(account("Alex", "world"));
+        batch.add(account("Herobrine", "world_the_end"));
+        assertEquals(2, backend.importAccounts(batch));
+        assertEquals(3L, backend.countAccounts());
+
+        List<Account> exported = new ArrayList<>();
+        backend.exportAccounts(exported::add);
+        assertEquals(3, exported.size());
+        Optional<Account> end = exported.stream().filter(a -> "Herobrine".equals(a.getName())).findFirst();
+        assertEquals("world_the_end", end.orElseThrow().getLastWorld());
+    }
+
+    @Test
+    void closedBackendFails() {
+        backend.close();
+        assertThrows(SQLException.class, () -> backend.findByUUID(UUID.randomUUID()));
+    }
+
+    private static Account account(String name, String world) {
+        long now = 1000L;
+        return world == null
+                ? new Account(UUID.randomUUID(), name, HASH, "127.0.0.1", now, now, null, null, null, null, null, null)
+                : new Account(UUID.randomUUID(), name, HASH, "127.0.0.1", now, now, world, 1.5, 64.0, -3.0, 90.0f, 0.0f);
+    }
+}
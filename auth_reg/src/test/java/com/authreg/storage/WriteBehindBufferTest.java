@@ -0,0 +1,62 @@
+package com.authreg.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WriteBehindBufferTest {
+    @Test
+    void restoredWriteFillsFieldsTheNewerWriteLacks() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer();
+        UUID uuid = UUID.randomUUID();
+        buffer.location(uuid, "world", 1.0, 64.0, 1.0, 0f, 0f, 1000L);
+        buffer.ip(uuid, "192.0.2.1", 1000L);
+        List<Map.Entry<UUID, WriteBehindBuffer.PendingWrite>> failed = buffer.drain();
+
+        buffer.ip(uuid, "192.0.2.2", 2000L);
+        buffer.restore(failed);
+
+        Account account = buffer.overlay(account(uuid));
+        assertEquals("world", account.getLastWorld());
+        assertEquals(1.0, account.getLastX());
+        assertEquals("192.0.2.2", account.getLastIp());
+        assertEquals(1, buffer.size());
+    }
+
+    @Test
+    void restoredWriteNeverOverwritesNewerFields() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer();
+        UUID uuid = UUID.randomUUID();
+        buffer.location(uuid, "world", 1.0, 64.0, 1.0, 0f, 0f, 1000L);
+        buffer.ip(uuid, "192.0.2.1", 1000L);
+        List<Map.Entry<UUID, WriteBehindBuffer.PendingWrite>> failed = buffer.drain();
+
+        buffer.location(uuid, "world_nether", 8.0, 70.0, 8.0, 90f, 0f, 2000L);
+        buffer.restore(failed);
+
+        Account account = buffer.overlay(account(uuid));
+        assertEquals("world_nether", account.getLastWorld());
+        assertEquals(8.0, account.getLastX());
+        assertEquals("192.0.2.1", account.getLastIp());
+        assertEquals(2000L, account.getUpdatedAt());
+    }
+
+    @Test
+    void restoredWriteIsKeptWhenNothingNewerArrived() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer();
+        UUID uuid = UUID.randomUUID();
+        buffer.ip(uuid, "192.0.2.1", 1000L);
+        buffer.restore(buffer.drain());
+
+        assertEquals(1, buffer.size());
+        assertEquals("192.0.2.1", buffer.overlay(account(uuid)).getLastIp());
+    }
+
+    private static Account account(UUID uuid) {
+        return new Account(uuid, "Steve", "hash", null, 0L, 0L, null, null, null, null, null, null);
+    }
+}